@@ -0,0 +1,169 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.ItemBookingProjection;
+import ru.practicum.shareit.item.InMemoryItemSearchEngine;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The server application context on a fresh embedded H2 database, seeded with a synthetic dataset:
+ * every user owns {@code itemsPerUser} items and {@code requestsPerUser} requests, every item has
+ * {@code bookingsPerItem} bookings by the next user (alternating past and future, approved and waiting)
+ * and one comment. Ids are assigned in insertion order starting from 1.
+ */
+public final class BenchmarkDataset implements AutoCloseable {
+
+    static final String[] NAMES = {"Дрель", "Отвертка", "Пылесос", "Лестница", "Палатка", "Велосипед",
+        "Шуруповерт", "Перфоратор", "Самокат", "Гитара"};
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final ConfigurableApplicationContext context;
+
+    private final int users;
+
+    private BenchmarkDataset(ConfigurableApplicationContext context, int users) {
+        this.context = context;
+        this.users = users;
+    }
+
+    public static BenchmarkDataset start(int users, int itemsPerUser, int bookingsPerItem, int requestsPerUser,
+                                         String... properties) {
+        return start(WebApplicationType.NONE, users, itemsPerUser, bookingsPerItem, requestsPerUser, properties);
+    }
+
+    /**
+     * The same dataset behind the embedded web server on a random {@link #getPort() port}.
+     */
+    public static BenchmarkDataset startServer(int users, int itemsPerUser, int bookingsPerItem, int requestsPerUser,
+                                               String... properties) {
+        List<String> serverProperties = new ArrayList<>(List.of(properties));
+        serverProperties.add("server.port=0");
+        return start(WebApplicationType.SERVLET, users, itemsPerUser, bookingsPerItem, requestsPerUser,
+                serverProperties.toArray(new String[0]));
+    }
+
+    private static BenchmarkDataset start(WebApplicationType webApplicationType, int users, int itemsPerUser,
+                                          int bookingsPerItem, int requestsPerUser, String... properties) {
+        List<String> arguments = new ArrayList<>(List.of(properties));
+        arguments.addAll(List.of(
+                "db.name=benchmark-" + UUID.randomUUID(),
+                "logging.level.root=WARN",
+                "logging.level.org.springframework.orm.jpa=WARN",
+                "logging.level.org.springframework.transaction=WARN",
+                "logging.level.org.springframework.transaction.interceptor=WARN",
+                "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN"));
+        // passed as command line arguments, since default properties lose to application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(webApplicationType)
+                .profiles("test")
+                .run(arguments.stream().map(argument -> "--" + argument).toArray(String[]::new));
+        BenchmarkDataset dataset = new BenchmarkDataset(context, users);
+        dataset.seed(itemsPerUser, bookingsPerItem, requestsPerUser);
+        return dataset;
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getPort() {
+        return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private void seed(int itemsPerUser, int bookingsPerItem, int requestsPerUser) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int user = 1; user <= users; user++) {
+            rows.add(new Object[]{user, "user " + user, "user" + user + "@shareit.ru"});
+        }
+        insert(jdbcTemplate, "INSERT INTO users (id, name, email) VALUES (?, ?, ?)", rows);
+
+        int requests = 0;
+        for (int user = 1; user <= users; user++) {
+            for (int i = 0; i < requestsPerUser; i++) {
+                requests++;
+                rows.add(new Object[]{requests, "Нужна " + NAMES[requests % NAMES.length], user,
+                    Timestamp.valueOf(now.minusMinutes(requests))});
+            }
+        }
+        insert(jdbcTemplate, "INSERT INTO requests (id, description, requestor_id, created) VALUES (?, ?, ?, ?)",
+                rows);
+
+        int items = 0;
+        for (int user = 1; user <= users; user++) {
+            for (int i = 0; i < itemsPerUser; i++) {
+                items++;
+                int requestId = requests > 0 && items % 5 == 0 ? items % requests + 1 : 0;
+                rows.add(new Object[]{items, NAMES[items % NAMES.length] + " " + items,
+                    "Описание вещи " + items, items % 10 != 0, user, requestId});
+            }
+        }
+        insert(jdbcTemplate,
+                "INSERT INTO items (id, name, description, is_available, owner_id, request_id) VALUES (?, ?, ?, ?, ?, ?)",
+                rows);
+
+        int bookings = 0;
+        for (int item = 1; item <= items; item++) {
+            int owner = (item - 1) / itemsPerUser + 1;
+            int booker = owner % users + 1;
+            for (int i = 0; i < bookingsPerItem; i++) {
+                LocalDateTime start = now.plusDays((i % 2 == 0 ? -2L : 2L) * (i + 1));
+                String status = i % 3 == 2 ? BookingStatus.WAITING.name() : BookingStatus.APPROVED.name();
+                bookings++;
+                rows.add(new Object[]{bookings, Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)), item,
+                    booker, status});
+            }
+        }
+        insert(jdbcTemplate,
+                "INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status) VALUES (?, ?, ?, ?, ?, ?)",
+                rows);
+
+        for (int item = 1; item <= items; item++) {
+            int owner = (item - 1) / itemsPerUser + 1;
+            rows.add(new Object[]{item, "Комментарий " + item, item, owner % users + 1, Timestamp.valueOf(now)});
+        }
+        insert(jdbcTemplate, "INSERT INTO comments (id, text, item_id, author_id, created) VALUES (?, ?, ?, ?, ?)",
+                rows);
+
+        // ids were given explicitly above, so the id sequences continue after them
+        for (String table : List.of("users", "requests", "items", "bookings", "comments")) {
+            Integer nextId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Integer.class);
+            jdbcTemplate.execute("ALTER SEQUENCE " + table + "_seq RESTART WITH " + nextId);
+        }
+
+        // the in-memory structures were built on startup, before the data existed
+        context.getBean(BookingIntervalIndex.class).warmUp();
+        context.getBean(ItemBookingProjection.class).warmUp();
+        context.getBean(InMemoryItemSearchEngine.class).rebuild();
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE)));
+        }
+        rows.clear();
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingService;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class BookingServiceBenchmark extends ServiceBenchmarkState {
+
+    @Param({"ALL", "PAST", "FUTURE", "WAITING"})
+    private String state;
+
+    @Param("20")
+    private int pageSize;
+
+    private BookingService service;
+
+    @Override
+    protected void setUp() {
+        service = dataset.getBean(BookingService.class);
+    }
+
+    @Benchmark
+    public Page<Booking> getByOwnerId() {
+        return service.getByOwnerId(nextUser(), state, 0, pageSize);
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.model.Comment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves {@code rows} comments in one transaction with the server's batch settings. {@link #identityIds}
+ * is the mapping before sequence ids: an identity column, which makes Hibernate send one INSERT per row
+ * whatever the batch size. {@link #sequenceIds} is the current mapping: inserts go out in batches and ids
+ * take one sequence call per 50 rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class EntityInsertBenchmark extends ServiceBenchmarkState {
+
+    @Param("1000")
+    private int rows;
+
+    private CommentRepository repository;
+
+    private IdentityCommentRepository identityRepository;
+
+    @Override
+    protected void setUp() {
+        dataset.getBean(JdbcTemplate.class).execute(IdentityComment.DDL);
+        repository = dataset.getBean(CommentRepository.class);
+        identityRepository = dataset.getBean(IdentityCommentRepository.class);
+    }
+
+    @Benchmark
+    public List<IdentityComment> identityIds() {
+        int item = nextUser();
+        List<IdentityComment> comments = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            IdentityComment comment = new IdentityComment();
+            comment.setText("Комментарий " + i);
+            comment.setItemId(item);
+            comment.setAuthorId(item % users + 1);
+            comment.setCreated(LocalDateTime.now());
+            comments.add(comment);
+        }
+        return identityRepository.saveAll(comments);
+    }
+
+    @Benchmark
+    public List<Comment> sequenceIds() {
+        int item = nextUser();
+        List<Comment> comments = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Comment comment = new Comment();
+            comment.setText("Комментарий " + i);
+            comment.setItemId(item);
+            comment.setAuthorId(item % users + 1);
+            comment.setCreated(LocalDateTime.now());
+            comments.add(comment);
+        }
+        return repository.saveAll(comments);
+    }
+}
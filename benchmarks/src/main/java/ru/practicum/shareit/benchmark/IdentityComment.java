@@ -0,0 +1,42 @@
+package ru.practicum.shareit.benchmark;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * {@link ru.practicum.shareit.item.model.Comment} as it was mapped before sequence ids: the id comes from an
+ * identity column, so Hibernate has to run each INSERT on its own to read the key back.
+ */
+@Entity
+@Table(name = "identity_comments")
+@Getter
+@Setter
+public class IdentityComment {
+
+    /**
+     * The V1 definition of the comments table.
+     */
+    static final String DDL = "CREATE TABLE IF NOT EXISTS identity_comments (" +
+            "id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY, " +
+            "text VARCHAR(255) NOT NULL, " +
+            "item_id BIGINT, " +
+            "author_id BIGINT, " +
+            "created TIMESTAMP WITHOUT TIME ZONE, " +
+            "CONSTRAINT fk_identity_comments_to_items FOREIGN KEY(item_id) REFERENCES items(id), " +
+            "CONSTRAINT fk_identity_comments_to_users FOREIGN KEY(author_id) REFERENCES users(id))";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+    private String text;
+    private int itemId;
+    private int authorId;
+    private LocalDateTime created;
+}
@@ -0,0 +1,6 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface IdentityCommentRepository extends JpaRepository<IdentityComment, Integer> {
+}
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.ItemRequestService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request feeds only read the items answering the requests of the page, so their latency should stay
+ * flat as the items table grows, e.g. {@code -p itemsPerUser=10,100,1000 -p bookingsPerItem=0}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ItemRequestServiceBenchmark extends ServiceBenchmarkState {
+
+    @Param("20")
+    private int pageSize;
+
+    private ItemRequestService service;
+
+    @Override
+    protected void setUp() {
+        service = dataset.getBean(ItemRequestService.class);
+    }
+
+    @Benchmark
+    public Page<ItemRequest> getAllOthersUsers() {
+        return service.getAllOthersUsers(nextUser(), 0, pageSize);
+    }
+
+    @Benchmark
+    public List<ItemRequest> getAllForUser() {
+        return service.getAllForUser(nextUser());
+    }
+}
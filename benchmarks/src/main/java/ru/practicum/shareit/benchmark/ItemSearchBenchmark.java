@@ -0,0 +1,127 @@
+package ru.practicum.shareit.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemSearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the in-process {@link ItemSearchIndex} with the {@code findByNameOrDescriptionNative} query
+ * for the first page of a search, on a plain schema without the application context.
+ * Pass {@code -p url=jdbc:postgresql://...} (with {@code user}/{@code password}) to measure against
+ * PostgreSQL with the trigram indexes instead of the embedded H2 database; use a scratch database,
+ * the benchmark migrates it and seeds its own owner with {@code items} rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ItemSearchBenchmark {
+
+    private static final String[] NAMES = {"ДРЕЛЬ", "ОТВЕРТКА", "ПЫЛЕСОС", "ЛЕСТНИЦА", "ПАЛАТКА", "ВЕЛОСИПЕД",
+        "ШУРУПОВЕРТ", "ПЕРФОРАТОР", "САМОКАТ", "ГИТАРА"};
+
+    private static final String[] DESCRIPTIONS = {"АККУМУЛЯТОРНАЯ", "УДАРНАЯ", "СКЛАДНАЯ", "ДЕТСКАЯ",
+        "ТУРИСТИЧЕСКАЯ", "ПРОФЕССИОНАЛЬНАЯ", "КОМПАКТНАЯ"};
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param("1000000")
+    private int items;
+
+    /**
+     * A frequent word and a query matching a single item.
+     */
+    @Param({"ДРЕЛЬ", "ГИТАРА 424242"})
+    private String text;
+
+    @Param("jdbc:h2:mem:benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+    private String url;
+
+    @Param("sa")
+    private String user;
+
+    @Param("")
+    private String password;
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private String pageQuery;
+
+    private String countQuery;
+
+    private int owner;
+
+    private final ItemSearchIndex index = new ItemSearchIndex();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, user, password);
+        boolean postgres = url.startsWith("jdbc:postgresql");
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common",
+                        postgres ? "classpath:db/migration/postgresql" : "classpath:db/migration/h2")
+                .load()
+                .migrate();
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        pageQuery = "SELECT i.id FROM items i WHERE " + ItemRepository.SEARCH_MATCH +
+                " ORDER BY CASE WHEN upper(i.name) LIKE '%' || :text || '%' THEN 0 ELSE 1 END, " +
+                (postgres ? "similarity(upper(i.name), :text) DESC, " : "") +
+                "i.id LIMIT " + PAGE_SIZE;
+        countQuery = "SELECT count(*) FROM items i WHERE " + ItemRepository.SEARCH_MATCH;
+
+        jdbcTemplate.getJdbcTemplate().update(
+                "INSERT INTO users (name, email) VALUES ('benchmark', 'benchmark@shareit.ru')");
+        owner = jdbcTemplate.getJdbcTemplate().queryForObject(
+                "SELECT id FROM users WHERE email = 'benchmark@shareit.ru'", Integer.class);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 1; i <= items; i++) {
+            String name = NAMES[i % NAMES.length] + " " + i;
+            String description = DESCRIPTIONS[i % DESCRIPTIONS.length] + " " + NAMES[(i / 7) % NAMES.length];
+            boolean available = i % 10 != 0;
+            batch.add(new Object[]{name, description, available, owner});
+            if (batch.size() == 10_000 || i == items) {
+                jdbcTemplate.getJdbcTemplate().batchUpdate(
+                        "INSERT INTO items (name, description, is_available, owner_id) VALUES (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.getJdbcTemplate().query("SELECT id, name, description, is_available FROM items",
+                rs -> {
+                    index.put(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getBoolean(4));
+                });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.getJdbcTemplate().update("DELETE FROM items WHERE owner_id = ?", owner);
+        jdbcTemplate.getJdbcTemplate().update("DELETE FROM users WHERE id = ?", owner);
+    }
+
+    @Benchmark
+    public Page<Integer> inMemoryIndex() {
+        return index.search(text, PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object[] nativeQuery() {
+        SqlParameterSource parameters = new MapSqlParameterSource("text", text);
+        return new Object[]{
+            jdbcTemplate.queryForList(pageQuery, parameters, Integer.class),
+            jdbcTemplate.queryForObject(countQuery, parameters, Long.class)
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ItemServiceBenchmark extends ServiceBenchmarkState {
+
+    @Param("ДРЕЛЬ")
+    private String text;
+
+    @Param("20")
+    private int pageSize;
+
+    private ItemService service;
+
+    @Override
+    protected void setUp() {
+        service = dataset.getBean(ItemService.class);
+    }
+
+    @Benchmark
+    public Page<Item> getAll() {
+        return service.getAll(nextUser(), 0, pageSize);
+    }
+
+    @Benchmark
+    public Page<Item> search() {
+        return service.search(nextUser(), text, 0, pageSize);
+    }
+}
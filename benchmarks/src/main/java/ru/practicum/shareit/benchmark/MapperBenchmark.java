@@ -0,0 +1,122 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/DTO conversions of one response page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param("20")
+    private int pageSize;
+
+    @Param("5")
+    private int commentsPerItem;
+
+    private final List<Item> items = new ArrayList<>();
+
+    private final List<ItemDto> itemDtos = new ArrayList<>();
+
+    private final List<Booking> bookings = new ArrayList<>();
+
+    private final List<BookingDto> bookingDtos = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        User owner = new User();
+        owner.setId(1);
+        owner.setName("owner");
+        owner.setEmail("owner@shareit.ru");
+        User booker = new User();
+        booker.setId(2);
+        booker.setName("booker");
+        booker.setEmail("booker@shareit.ru");
+        for (int i = 1; i <= pageSize; i++) {
+            Item item = new Item();
+            item.setId(i);
+            item.setName(BenchmarkDataset.NAMES[i % BenchmarkDataset.NAMES.length] + " " + i);
+            item.setDescription("Описание вещи " + i);
+            item.setAvailable(true);
+            item.setUserId(owner.getId());
+            item.setOwner(owner);
+            List<Comment> comments = new ArrayList<>();
+            for (int j = 1; j <= commentsPerItem; j++) {
+                Comment comment = new Comment();
+                comment.setId(i * commentsPerItem + j);
+                comment.setText("Комментарий " + j);
+                comment.setItemId(i);
+                comment.setAuthorId(booker.getId());
+                comment.setAuthorName(booker.getName());
+                comment.setCreated(now);
+                comments.add(comment);
+            }
+            item.setComments(comments);
+
+            Booking booking = new Booking();
+            booking.setId(i);
+            booking.setStart(now.plusDays(i));
+            booking.setEnd(now.plusDays(i + 1));
+            booking.setItemId(i);
+            booking.setItem(item);
+            booking.setUserId(booker.getId());
+            booking.setBooker(booker);
+            booking.setStatus(BookingStatus.APPROVED);
+            item.setNextBooking(BookingMapper.toBookingInItem(booking));
+
+            items.add(item);
+            itemDtos.add(ItemMapper.toItemDto(item));
+            bookings.add(booking);
+            bookingDtos.add(BookingMapper.toBookingDto(booking));
+        }
+    }
+
+    @Benchmark
+    public void itemToDto(Blackhole blackhole) {
+        for (Item item : items) {
+            blackhole.consume(ItemMapper.toItemDto(item));
+        }
+    }
+
+    @Benchmark
+    public void dtoToItem(Blackhole blackhole) {
+        for (ItemDto itemDto : itemDtos) {
+            blackhole.consume(ItemMapper.toItem(itemDto));
+        }
+    }
+
+    @Benchmark
+    public void bookingToDto(Blackhole blackhole) {
+        for (Booking booking : bookings) {
+            blackhole.consume(BookingMapper.toBookingDto(booking));
+        }
+    }
+
+    @Benchmark
+    public void dtoToBooking(Blackhole blackhole) {
+        for (BookingDto bookingDto : bookingDtos) {
+            blackhole.consume(BookingMapper.toBooking(bookingDto));
+        }
+    }
+}
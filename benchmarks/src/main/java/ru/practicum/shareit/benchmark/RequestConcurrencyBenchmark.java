@@ -0,0 +1,85 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for a burst of {@code clients} concurrent {@code GET /bookings} calls, each of which blocks on JDBC,
+ * served by the Tomcat platform pool or by virtual threads ({@code shareit.threads.virtual}). Divide
+ * {@code clients} by the score for throughput. Virtual threads need a Java 21 runtime, so run the forked
+ * JVM on it, e.g. {@code -Djmh.args="RequestConcurrencyBenchmark -jvm /usr/lib/jvm/jdk-21/bin/java"};
+ * on older JVMs both variants use the platform pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class RequestConcurrencyBenchmark {
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"1000", "10000"})
+    private int clients;
+
+    @Param("1000")
+    private int users;
+
+    private BenchmarkDataset dataset;
+
+    private HttpClient client;
+
+    private String url;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkDataset.startServer(users, 10, 10, 5,
+                "shareit.threads.virtual=" + virtualThreads,
+                "server.tomcat.max-connections=" + (clients * 2),
+                "server.tomcat.accept-count=" + clients);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        url = "http://localhost:" + dataset.getPort() + "/bookings?state=ALL&from=0&size=10";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public int burst() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .header("X-Sharer-User-Id", String.valueOf(i % users + 1))
+                    // a 10k burst on a small machine queues for well over a minute on the platform pool
+                    .timeout(Duration.ofMinutes(10))
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() == 200) {
+                ok++;
+            }
+        }
+        if (ok != clients) {
+            throw new IllegalStateException((clients - ok) + " of " + clients + " requests failed");
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Dataset shape shared by the service benchmarks; override any of it with {@code -p name=value}.
+ */
+@State(Scope.Benchmark)
+public abstract class ServiceBenchmarkState {
+
+    @Param("1000")
+    protected int users;
+
+    @Param("10")
+    protected int itemsPerUser;
+
+    @Param("10")
+    protected int bookingsPerItem;
+
+    @Param("5")
+    protected int requestsPerUser;
+
+    protected BenchmarkDataset dataset;
+
+    private int nextUser;
+
+    @Setup(Level.Trial)
+    public void startDataset() {
+        dataset = BenchmarkDataset.start(users, itemsPerUser, bookingsPerItem, requestsPerUser, properties());
+        setUp();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDataset() {
+        dataset.close();
+    }
+
+    protected void setUp() {
+    }
+
+    /**
+     * Extra server properties of the benchmarked context.
+     */
+    protected String[] properties() {
+        return new String[0];
+    }
+
+    /**
+     * Cycles through all users, so that a benchmark does not measure one warm user only.
+     */
+    protected int nextUser() {
+        nextUser = nextUser % users + 1;
+        return nextUser;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * With {@code shareit.threads.virtual=true} Tomcat handles every request on its own virtual thread
+ * instead of the bounded platform pool, so requests blocked on JDBC or on the server call do not hold
+ * an OS thread. Virtual threads need a Java 21 runtime; the executor is looked up reflectively so the
+ * Java 11 build still runs everywhere and simply keeps the platform pool on older JVMs.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit.threads.virtual", havingValue = "true")
+@Slf4j
+public class VirtualThreadsConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> newVirtualThreadPerTaskExecutor().ifPresent(executor -> {
+            protocolHandler.setExecutor(executor);
+            log.info("Tomcat requests run on virtual threads");
+        });
+    }
+
+    static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null));
+        } catch (NoSuchMethodException | InvocationTargetException e) {
+            log.warn("Virtual threads are not available on Java {}, requests stay on the platform thread pool",
+                    Runtime.version());
+            return Optional.empty();
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -4,57 +4,136 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GatewayResponseCache;
+import ru.practicum.shareit.client.HttpClientProperties;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
+    private final GatewayResponseCache responseCache;
+
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                ClientHttpRequestFactory requestFactory, WebClient.Builder webClientBuilder,
+                HttpClientProperties properties, GatewayResponseCache responseCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                properties.getMode() == HttpClientProperties.Mode.REACTIVE
+                        ? webClientBuilder
+                        .uriBuilderFactory(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
                         .build()
+                        : null,
+                properties.isPassthrough()
         );
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<Object> addBooking(long userId, BookingDto requestDto) {
+    public Mono<ResponseEntity<Object>> addBooking(long userId, BookingDto requestDto) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> addBookings(long userId, List<BookingDto> requestDtos) {
+        return post("/batch", userId, requestDtos);
+    }
+
+    public Mono<ResponseEntity<Object>> getBookings(long userId, BookingState state, Integer from, Integer size,
+                                                    String fields) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
         );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        return getList("?state={state}&from={from}&size={size}", userId, parameters, fields);
     }
 
-    public ResponseEntity<Object> getBookingsByOwner(long userId, BookingState state, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getBookingsByOwner(long userId, BookingState state, Integer from, Integer size,
+                                                           String fields) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
         );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        return getList("/owner?state={state}&from={from}&size={size}", userId, parameters, fields);
     }
 
-    public ResponseEntity<Object> getBooking(long userId, Long bookingId) {
+    public Mono<ResponseEntity<Object>> getBookingsAfter(long userId, BookingState state, String after, Integer size,
+                                                         String fields) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "after", after,
+                "size", size
+        );
+        return getList("?state={state}&after={after}&size={size}", userId, parameters, fields);
+    }
+
+    public Mono<ResponseEntity<Object>> getBookingsByOwnerAfter(long userId, BookingState state, String after,
+                                                                Integer size, String fields) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "after", after,
+                "size", size
+        );
+        return getList("/owner?state={state}&after={after}&size={size}", userId, parameters, fields);
+    }
+
+    public void exportBookingsByOwner(long userId, String format, HttpServletResponse response) throws IOException {
+        getStream("/owner/export?format={format}", userId, Map.of("format", format), response);
+    }
+
+    public Mono<ResponseEntity<Object>> getAvailability(long userId, long itemId, LocalDateTime start, LocalDateTime end) {
+        Map<String, Object> parameters = Map.of(
+                "itemId", itemId,
+                "start", start,
+                "end", end
+        );
+        return get("/availability?itemId={itemId}&start={start}&end={end}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> getBooking(long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> updateBooking(long userId, Long bookingId, Boolean approved) {
+    public Mono<ResponseEntity<Object>> updateBooking(long userId, Long bookingId, Boolean approved) {
         Map<String, Object> parameters = Map.of("approved", approved);
-        return patch("/" + bookingId + "?approved={approved}", userId, parameters, null);
+        // an approval changes the last or next booking shown with the item, which is not known here
+        return responseCache.invalidating(patch("/" + bookingId + "?approved={approved}", userId, parameters, null),
+                "/items/");
+    }
+
+    public Mono<ResponseEntity<Object>> updateBookings(long userId, List<BookingApprovalDto> approvals) {
+        return responseCache.invalidating(patch("/batch", userId, approvals), "/items/");
+    }
+
+    /**
+     * Passes the optional {@code fields} selection of a booking list on to the server.
+     */
+    private Mono<ResponseEntity<Object>> getList(String path, long userId, Map<String, Object> parameters,
+                                                 String fields) {
+        if (fields == null) {
+            return get(path, userId, parameters);
+        }
+        Map<String, Object> withFields = new HashMap<>(parameters);
+        withFields.put("fields", fields);
+        return get(path + "&fields={fields}", userId, withFields);
     }
 }
@@ -1,86 +1,196 @@
 package ru.practicum.shareit.client;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
+import lombok.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Forwards gateway calls to the ShareIt server. With a {@link WebClient} the request is sent
+ * without blocking the servlet thread; otherwise it goes through the {@link RestTemplate} on
+ * the subscribing (servlet) thread, exactly as before.
+ * <p>
+ * In passthrough mode response bodies are relayed as the raw bytes the server sent, together
+ * with its status and end-to-end headers, instead of being parsed into maps and re-serialized.
+ * <p>
+ * Concurrent identical GETs (same path, parameters and user) share one in-flight server call.
+ */
 public class BaseClient {
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            "connection", "keep-alive", "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade");
+
     protected final RestTemplate rest;
 
+    @Nullable
+    protected final WebClient web;
+
+    private final boolean passthrough;
+
+    private final ConcurrentMap<ReadKey, Mono<ResponseEntity<Object>>> inFlightReads = new ConcurrentHashMap<>();
+
     public BaseClient(RestTemplate rest) {
+        this(rest, null, false);
+    }
+
+    public BaseClient(RestTemplate rest, @Nullable WebClient web, boolean passthrough) {
         this.rest = rest;
+        this.web = web;
+        this.passthrough = passthrough;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+    /**
+     * Pipes the body to the server while it is being read, for uploads too large to hold in memory.
+     * {@code streamingRest} must not buffer request bodies. Runs on the calling thread.
+     */
+    protected ResponseEntity<Object> postStream(RestTemplate streamingRest, String path, long userId,
+                                                MediaType contentType, InputStream body) {
+        try {
+            return streamingRest.execute(path, HttpMethod.POST, request -> {
+                request.getHeaders().addAll(defaultHeaders(userId));
+                request.getHeaders().setContentType(contentType);
+                StreamUtils.copy(body, request.getBody());
+            }, response -> ResponseEntity.status(response.getRawStatusCode())
+                    .headers(endToEndHeaders(response.getHeaders()))
+                    .body(StreamUtils.copyToByteArray(response.getBody())));
+        } catch (HttpStatusCodeException e) {
+            return ResponseEntity.status(e.getStatusCode())
+                    .headers(endToEndHeaders(e.getResponseHeaders()))
+                    .body(e.getResponseBodyAsByteArray());
+        }
+    }
+
+    /**
+     * Copies a download to {@code target} while it is being received, for responses too large to hold in
+     * memory. Like {@link #postStream} it runs on the calling thread through the {@link RestTemplate}'s
+     * request factory, also in reactive mode. The server response is closed however the copy ends,
+     * including when the client goes away.
+     */
+    protected void getStream(String path, long userId, Map<String, Object> parameters,
+                             HttpServletResponse target) throws IOException {
+        URI uri = rest.getUriTemplateHandler().expand(path, parameters);
+        ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, HttpMethod.GET);
+        request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+        try (ClientHttpResponse response = request.execute()) {
+            target.setStatus(response.getRawStatusCode());
+            endToEndHeaders(response.getHeaders())
+                    .forEach((name, values) -> values.forEach(value -> target.addHeader(name, value)));
+            StreamUtils.copy(response.getBody(), target.getOutputStream());
+        }
+    }
+
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        if (method == HttpMethod.GET) {
+            return coalesce(new ReadKey(path, parameters, userId), () -> send(method, path, userId, parameters, body));
+        }
+        return send(method, path, userId, parameters, body);
+    }
+
+    /**
+     * Joins the in-flight call for the same read if there is one. The shared call is not cancelled when
+     * one of its callers goes away, and it is dropped from the map once it completes, so later reads go
+     * to the server again.
+     */
+    private Mono<ResponseEntity<Object>> coalesce(ReadKey key, Supplier<Mono<ResponseEntity<Object>>> call) {
+        return Mono.defer(() -> inFlightReads.computeIfAbsent(key, k -> call.get()
+                .doFinally(signal -> inFlightReads.remove(k))
+                .cache()));
+    }
+
+    private <T> Mono<ResponseEntity<Object>> send(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        if (web != null) {
+            return exchangeReactive(method, path, userId, parameters, body);
+        }
+        return Mono.fromSupplier(() -> exchange(method, path, userId, parameters, body));
+    }
+
+    private <T> ResponseEntity<Object> exchange(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        if (passthrough) {
+            return exchangeBytes(method, path, requestEntity, parameters);
+        }
 
         ResponseEntity<Object> shareitServerResponse;
         try {
@@ -95,6 +205,46 @@ public class BaseClient {
         return prepareGatewayResponse(shareitServerResponse);
     }
 
+    private <T> ResponseEntity<Object> exchangeBytes(HttpMethod method, String path, HttpEntity<T> requestEntity, @Nullable Map<String, Object> parameters) {
+        ResponseEntity<byte[]> shareitServerResponse;
+        try {
+            if (parameters != null) {
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class, parameters);
+            } else {
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class);
+            }
+        } catch (HttpStatusCodeException e) {
+            return ResponseEntity.status(e.getStatusCode())
+                    .headers(endToEndHeaders(e.getResponseHeaders()))
+                    .body(e.getResponseBodyAsByteArray());
+        }
+        return ResponseEntity.status(shareitServerResponse.getStatusCode())
+                .headers(endToEndHeaders(shareitServerResponse.getHeaders()))
+                .body(shareitServerResponse.getBody());
+    }
+
+    private <T> Mono<ResponseEntity<Object>> exchangeReactive(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        WebClient.RequestBodySpec request = (parameters != null
+                ? web.method(method).uri(path, parameters)
+                : web.method(method).uri(path))
+                .headers(headers -> headers.addAll(defaultHeaders(userId)));
+        WebClient.RequestHeadersSpec<?> spec = body != null ? request.bodyValue(body) : request;
+        return spec.exchangeToMono(response -> {
+            if (passthrough) {
+                return response.toEntity(byte[].class)
+                        .map(entity -> ResponseEntity.status(entity.getStatusCode())
+                                .headers(endToEndHeaders(entity.getHeaders()))
+                                .body(entity.getBody()));
+            }
+            if (response.statusCode().is2xxSuccessful()) {
+                return response.toEntity(Object.class);
+            }
+            return response.bodyToMono(byte[].class)
+                    .map(bytes -> ResponseEntity.status(response.statusCode()).<Object>body(bytes))
+                    .defaultIfEmpty(ResponseEntity.status(response.statusCode()).body(new byte[0]));
+        });
+    }
+
     private HttpHeaders defaultHeaders(Long userId) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -105,6 +255,25 @@ public class BaseClient {
         return headers;
     }
 
+    @Value
+    private static class ReadKey {
+        String path;
+        Map<String, Object> parameters;
+        Long userId;
+    }
+
+    private static HttpHeaders endToEndHeaders(@Nullable HttpHeaders headers) {
+        HttpHeaders result = new HttpHeaders();
+        if (headers != null) {
+            headers.forEach((name, values) -> {
+                if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    result.addAll(name, values);
+                }
+            });
+        }
+        return result;
+    }
+
     private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
         if (response.getStatusCode().is2xxSuccessful()) {
             return response;
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of successful server responses to idempotent GETs. Entries are keyed by the
+ * request URI and {@code X-Sharer-User-Id}, because the server shapes some responses for the caller
+ * (booking dates are returned to the item owner only), and are grouped by the resource they show,
+ * e.g. {@code /items/5}, so that a mutating call forwarded for that resource drops them.
+ * <p>
+ * Invalidation only sees calls made through this gateway instance; the TTL bounds staleness for
+ * changes made elsewhere or not mapped to a resource here.
+ */
+public class GatewayResponseCache {
+
+    private final Cache<Key, ResponseEntity<Object>> cache;
+
+    private final boolean enabled;
+
+    /**
+     * Bumped on every invalidation; a response loaded across an invalidation is not stored.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    public GatewayResponseCache(ResponseCacheProperties properties, @Nullable MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.responses");
+            Gauge.builder("gateway.responses.hit.ratio", cache, c -> c.stats().hitRate())
+                    .description("Share of gateway GETs answered from the response cache")
+                    .register(meterRegistry);
+        }
+    }
+
+    public Mono<ResponseEntity<Object>> get(String resource, String uri, @Nullable Long userId,
+                                            Supplier<Mono<ResponseEntity<Object>>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(resource, uri, userId);
+        ResponseEntity<Object> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        long loadedAt = version.get();
+        return loader.get().doOnNext(response -> {
+            if (response.getStatusCode() == HttpStatus.OK && version.get() == loadedAt) {
+                cache.put(key, response);
+            }
+        });
+    }
+
+    /**
+     * Drops cached responses of the given resources once the mutation has been answered by the server.
+     * A resource ending with {@code /} drops everything below it.
+     */
+    public Mono<ResponseEntity<Object>> invalidating(Mono<ResponseEntity<Object>> mutation, String... resources) {
+        if (!enabled) {
+            return mutation;
+        }
+        return mutation.doOnNext(response -> invalidate(resources));
+    }
+
+    public void invalidate(String... resources) {
+        version.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> {
+            for (String resource : resources) {
+                if (resource.endsWith("/") ? key.resource.startsWith(resource) : key.resource.equals(resource)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    public long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    @Value
+    private static class Key {
+        String resource;
+        String uri;
+        Long userId;
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection pool and timeout settings for the HTTP client shared by all gateway clients.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.http")
+public class HttpClientProperties {
+
+    /**
+     * BLOCKING forwards through RestTemplate on the servlet thread, REACTIVE through WebClient
+     * on Reactor Netty, releasing the servlet thread while the server responds.
+     */
+    private Mode mode = Mode.BLOCKING;
+
+    /**
+     * Relay server response bodies as raw bytes instead of parsing and re-serializing them.
+     */
+    private boolean passthrough = true;
+
+    private int maxTotal = 200;
+
+    private int maxPerRoute = 100;
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    /**
+     * How long a request waits for a free pooled connection before failing.
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Keep-alive used when the server does not send a Keep-Alive header.
+     */
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    public enum Mode {
+        BLOCKING,
+        REACTIVE
+    }
+}
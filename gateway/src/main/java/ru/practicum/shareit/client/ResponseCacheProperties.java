@@ -0,0 +1,22 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the gateway response cache, see {@link GatewayResponseCache}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    private long maxSize = 10_000;
+
+    private Duration ttl = Duration.ofSeconds(5);
+}
@@ -3,36 +3,75 @@ package ru.practicum.shareit.item;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GatewayResponseCache;
+import ru.practicum.shareit.client.HttpClientProperties;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoForPatch;
 
+import java.io.InputStream;
 import java.util.Map;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final GatewayResponseCache responseCache;
+
+    private final RestTemplate importRest;
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                ClientHttpRequestFactory requestFactory, WebClient.Builder webClientBuilder,
+                HttpClientProperties properties, GatewayResponseCache responseCache,
+                CloseableHttpClient shareItServerHttpClient) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                properties.getMode() == HttpClientProperties.Mode.REACTIVE
+                        ? webClientBuilder
+                        .uriBuilderFactory(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
                         .build()
+                        : null,
+                properties.isPassthrough()
         );
+        this.responseCache = responseCache;
+        HttpComponentsClientHttpRequestFactory streamingRequestFactory =
+                new HttpComponentsClientHttpRequestFactory(shareItServerHttpClient);
+        streamingRequestFactory.setBufferRequestBody(false);
+        this.importRest = builder
+                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                .requestFactory(() -> streamingRequestFactory)
+                .build();
+    }
+
+    public Mono<ResponseEntity<Object>> addItem(long userId, ItemDto itemDto) {
+        // the new item may answer a request
+        return responseCache.invalidating(post("", userId, itemDto), "/requests/");
     }
 
-    public ResponseEntity<Object> addItem(long userId, ItemDto itemDto) {
-        return post("", userId, itemDto);
+    public ResponseEntity<Object> importItems(long userId, InputStream items) {
+        ResponseEntity<Object> response = postStream(importRest, "/import", userId, NDJSON, items);
+        // imported items may answer requests
+        responseCache.invalidate("/requests/");
+        return response;
     }
 
-    public ResponseEntity<Object> getItems(long userId, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getItems(long userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -40,15 +79,17 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getItem(long userId, Long itemId) {
-        return get("/" + itemId, userId);
+    public Mono<ResponseEntity<Object>> getItem(long userId, Long itemId) {
+        return responseCache.get(API_PREFIX + "/" + itemId, API_PREFIX + "/" + itemId, userId,
+                () -> get("/" + itemId, userId));
     }
 
-    public ResponseEntity<Object> updateItem(long userId, Long itemId, ItemDtoForPatch itemDto) {
-        return patch("/" + itemId, userId, itemDto);
+    public Mono<ResponseEntity<Object>> updateItem(long userId, Long itemId, ItemDtoForPatch itemDto) {
+        return responseCache.invalidating(patch("/" + itemId, userId, itemDto),
+                API_PREFIX + "/" + itemId, "/requests/");
     }
 
-    public ResponseEntity<Object> searchItems(long userId, String text, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> searchItems(long userId, String text, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
@@ -57,7 +98,8 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> addComment(long userId, Long itemId, CommentDto commentDto) {
-        return post("/" + itemId + "/comment", userId, commentDto);
+    public Mono<ResponseEntity<Object>> addComment(long userId, Long itemId, CommentDto commentDto) {
+        return responseCache.invalidating(post("/" + itemId + "/comment", userId, commentDto),
+                API_PREFIX + "/" + itemId);
     }
 }
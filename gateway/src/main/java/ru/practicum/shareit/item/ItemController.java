@@ -7,12 +7,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoForPatch;
 
 import javax.validation.Valid;
 import javax.validation.constraints.*;
+import java.io.InputStream;
 
 @Controller
 @RequestMapping(path = "/items")
@@ -23,14 +25,24 @@ public class ItemController {
     private final ItemClient itemClient;
 
     @PostMapping
-    public ResponseEntity<Object> addItem(@RequestHeader("X-Sharer-User-Id") long userId,
+    public Mono<ResponseEntity<Object>> addItem(@RequestHeader("X-Sharer-User-Id") long userId,
                                           @RequestBody @Valid ItemDto itemDto) {
         log.info("Creating item {}, userId={}", itemDto, userId);
         return itemClient.addItem(userId, itemDto);
     }
 
+    /**
+     * Relays an NDJSON upload to the server without reading it into memory; the lines are validated there.
+     */
+    @PostMapping(path = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<Object> importItems(@RequestHeader("X-Sharer-User-Id") long userId,
+                                              InputStream items) {
+        log.info("Importing items, userId={}", userId);
+        return itemClient.importItems(userId, items);
+    }
+
     @GetMapping
-    public ResponseEntity<Object> getItems(@RequestHeader("X-Sharer-User-Id") Integer userId,
+    public Mono<ResponseEntity<Object>> getItems(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                            @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
                                            @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
         log.info("Get all items, userId={}", userId);
@@ -38,20 +50,20 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItem(@RequestHeader("X-Sharer-User-Id") Integer userId, @PathVariable Long itemId) {
+    public Mono<ResponseEntity<Object>> getItem(@RequestHeader("X-Sharer-User-Id") Integer userId, @PathVariable Long itemId) {
         log.info("Get item {}, userId={}", itemId, userId);
         return itemClient.getItem(userId, itemId);
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(@RequestHeader("X-Sharer-User-Id") Integer userId,
+    public Mono<ResponseEntity<Object>> updateItem(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                              @PathVariable Long itemId, @RequestBody @Valid ItemDtoForPatch itemDto) {
         log.info("Update item {}, userId={}", itemId, userId);
         return itemClient.updateItem(userId, itemId, itemDto);
     }
 
     @GetMapping({"/search", "/search/all"})
-    public ResponseEntity<Object> searchItems(@RequestHeader("X-Sharer-User-Id") Integer userId,
+    public Mono<ResponseEntity<Object>> searchItems(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                               @RequestParam String text,
                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
                                               @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
@@ -60,7 +72,7 @@ public class ItemController {
     }
 
     @PostMapping("{itemId}/comment")
-    public ResponseEntity<Object> addComment(@RequestHeader("X-Sharer-User-Id") Integer userId,
+    public Mono<ResponseEntity<Object>> addComment(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                  @PathVariable Long itemId, @Valid @RequestBody CommentDto commentDto) {
         return itemClient.addComment(userId, itemId, commentDto);
     }
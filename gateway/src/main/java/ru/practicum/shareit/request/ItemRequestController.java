@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import javax.validation.Valid;
@@ -23,20 +24,20 @@ public class ItemRequestController {
     private final ItemRequestClient itemRequestClient;
 
     @PostMapping
-    public ResponseEntity<Object> addItemRequest(@RequestHeader("X-Sharer-User-Id") long userId,
+    public Mono<ResponseEntity<Object>> addItemRequest(@RequestHeader("X-Sharer-User-Id") long userId,
                                              @RequestBody @Valid ItemRequestDto itemRequestDto) {
         log.info("Creating item request {}, userId={}", itemRequestDto, userId);
         return itemRequestClient.addItemRequest(userId, itemRequestDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemRequests(@RequestHeader("X-Sharer-User-Id") long userId) {
+    public Mono<ResponseEntity<Object>> getItemRequests(@RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("Get item requests for userId={}", userId);
         return itemRequestClient.getItemRequests(userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getItemRequestOthersUsers(@RequestHeader("X-Sharer-User-Id") long userId,
+    public Mono<ResponseEntity<Object>> getItemRequestOthersUsers(@RequestHeader("X-Sharer-User-Id") long userId,
                                                      @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
                                                      @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
         log.info("Get item requests for users except userId={}, from={}, size={}", userId, from, size);
@@ -44,7 +45,7 @@ public class ItemRequestController {
     }
 
     @GetMapping("/{itemRequestId}")
-    public ResponseEntity<Object> getItemRequest(@RequestHeader("X-Sharer-User-Id") long userId,
+    public Mono<ResponseEntity<Object>> getItemRequest(@RequestHeader("X-Sharer-User-Id") long userId,
                                              @PathVariable Long itemRequestId) {
         log.info("Get item request {}, userId={}", itemRequestId, userId);
         return itemRequestClient.getItemRequest(userId, itemRequestId);
@@ -0,0 +1,274 @@
+package ru.practicum.shareit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.lessThan;
+
+public class GatewayForwardingTests {
+
+    private static final int SERVER_DELAY_MS = 300;
+    private static final int GATEWAY_THREADS = 4;
+    private static final int CONCURRENT_REQUESTS = 64;
+    private static final String ITEM = "{\"id\":1,\"name\":\"Дрель\",\"description\":\"Простая дрель\"}";
+    private static final String NOT_FOUND = "{\"error\":\"Вещь не найдена\"}";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final Queue<String> forwardedUserIds = new ConcurrentLinkedQueue<>();
+    private final Queue<String> forwardedPaths = new ConcurrentLinkedQueue<>();
+    private final Queue<String> forwardedBodies = new ConcurrentLinkedQueue<>();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        serverExecutor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS * 2);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), CONCURRENT_REQUESTS * 2);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", this::respond);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void blockingModeForwardsHeaderAndStatus() throws Exception {
+        try (ConfigurableApplicationContext gateway = startGateway("blocking")) {
+            checkForwarding(gateway, true);
+        }
+    }
+
+    @Test
+    void reactiveModeForwardsHeaderAndStatus() throws Exception {
+        try (ConfigurableApplicationContext gateway = startGateway("reactive")) {
+            checkForwarding(gateway, true);
+        }
+    }
+
+    @Test
+    void decodingModesForwardHeaderAndStatus() throws Exception {
+        try (ConfigurableApplicationContext gateway = startGateway("blocking", "--shareit-server.http.passthrough=false")) {
+            checkForwarding(gateway, false);
+        }
+        try (ConfigurableApplicationContext gateway = startGateway("reactive", "--shareit-server.http.passthrough=false")) {
+            checkForwarding(gateway, false);
+        }
+    }
+
+    @Test
+    void reactiveModeServesMoreConcurrentRequestsOnSameThreads() throws Exception {
+        long blocking;
+        try (ConfigurableApplicationContext gateway = startGateway("blocking")) {
+            blocking = runLoad(gateway);
+        }
+        long reactive;
+        try (ConfigurableApplicationContext gateway = startGateway("reactive")) {
+            reactive = runLoad(gateway);
+        }
+        // 64 requests over 4 servlet threads take 16 server round trips when blocking,
+        // while reactive forwarding keeps them all in flight at once
+        assertThat(reactive * 2, lessThan(blocking));
+    }
+
+    @Test
+    void blockingModeSharesConcurrentIdenticalReads() {
+        try (ConfigurableApplicationContext gateway = startGateway("blocking")) {
+            checkCoalescing(gateway);
+        }
+    }
+
+    @Test
+    void reactiveModeSharesConcurrentIdenticalReads() {
+        try (ConfigurableApplicationContext gateway = startGateway("reactive")) {
+            checkCoalescing(gateway);
+        }
+    }
+
+    @Test
+    void invalidBatchIsRejectedWithoutForwarding() throws Exception {
+        try (ConfigurableApplicationContext gateway = startGateway("blocking")) {
+            HttpResponse<String> empty = client.send(batch(gateway, "[]"), HttpResponse.BodyHandlers.ofString());
+            assertThat(empty.statusCode(), equalTo(400));
+
+            HttpResponse<String> noDecision = client.send(batch(gateway, "[{\"bookingId\":1}]"),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(noDecision.statusCode(), equalTo(400));
+
+            HttpResponse<String> valid = client.send(batch(gateway, "[{\"bookingId\":1,\"approved\":true}]"),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(valid.statusCode(), equalTo(200));
+            assertThat(forwardedPaths.stream().filter("/bookings/batch"::equals).count(), equalTo(1L));
+        }
+    }
+
+    @Test
+    void importIsStreamedToServer() throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            lines.append("{\"name\":\"Дрель ").append(i).append("\",\"description\":\"Простая дрель\",\"available\":true}\n");
+        }
+        try (ConfigurableApplicationContext gateway = startGateway("reactive")) {
+            String port = gateway.getEnvironment().getProperty("local.server.port");
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/items/import"))
+                    .header("X-Sharer-User-Id", "7")
+                    .header("Content-Type", "application/x-ndjson")
+                    .POST(HttpRequest.BodyPublishers.ofString(lines.toString()))
+                    .build();
+
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertThat(response.statusCode(), equalTo(200));
+            assertThat(forwardedPaths, hasItem("/items/import"));
+            assertThat(forwardedBodies, hasItem(lines.toString()));
+            assertThat(forwardedUserIds, hasItem("7"));
+        }
+    }
+
+    @Test
+    void exportIsStreamedFromServer() throws Exception {
+        try (ConfigurableApplicationContext gateway = startGateway("reactive")) {
+            HttpResponse<String> found = client.send(request(gateway, "/bookings/owner/export?format=csv"),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(found.statusCode(), equalTo(200));
+            assertThat(found.body(), equalTo(ITEM));
+            assertThat(found.headers().firstValue("Content-Type").orElse(""), containsString("application/json"));
+            assertThat(forwardedPaths, hasItem("/bookings/owner/export"));
+            assertThat(forwardedUserIds, hasItem("7"));
+
+            HttpResponse<String> missing = client.send(request(gateway, "/bookings/owner/export?format=404"),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(missing.statusCode(), equalTo(404));
+            assertThat(missing.body(), equalTo(NOT_FOUND));
+            // both server responses went back to the pool
+            assertThat(gateway.getBean(PoolingHttpClientConnectionManager.class).getTotalStats().getLeased(),
+                    equalTo(0));
+        }
+    }
+
+    private void checkCoalescing(ConfigurableApplicationContext gateway) {
+        client.sendAsync(request(gateway, "/items/1"), HttpResponse.BodyHandlers.discarding()).join();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            responses.add(client.sendAsync(request(gateway, "/items/2"), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertThat(response.join().body(), equalTo(ITEM));
+        }
+        assertThat(forwardedPaths.stream().filter("/items/2"::equals).count(), equalTo(1L));
+
+        client.sendAsync(request(gateway, "/items/2"), HttpResponse.BodyHandlers.discarding()).join();
+        assertThat(forwardedPaths.stream().filter("/items/2"::equals).count(), equalTo(2L));
+    }
+
+    private void checkForwarding(ConfigurableApplicationContext gateway, boolean passthrough) throws Exception {
+        HttpResponse<String> found = client.send(request(gateway, "/items/1"), HttpResponse.BodyHandlers.ofString());
+        assertThat(found.statusCode(), equalTo(200));
+        assertThat(found.body(), equalTo(ITEM));
+        assertThat(found.headers().firstValue("X-Next-Cursor").orElse(null), equalTo("cursor"));
+        assertThat(forwardedUserIds, hasItem("7"));
+
+        HttpResponse<String> missing = client.send(request(gateway, "/items/404"), HttpResponse.BodyHandlers.ofString());
+        assertThat(missing.statusCode(), equalTo(404));
+        assertThat(missing.body(), equalTo(NOT_FOUND));
+        if (passthrough) {
+            assertThat(missing.headers().firstValue("Content-Type").orElse(""), containsString("application/json"));
+        }
+    }
+
+    private long runLoad(ConfigurableApplicationContext gateway) {
+        // warm up connections and handler mappings before timing
+        client.sendAsync(request(gateway, "/items/1"), HttpResponse.BodyHandlers.discarding()).join();
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            // distinct items, so that the reads are not coalesced
+            responses.add(client.sendAsync(request(gateway, "/items/" + (i + 100)),
+                    HttpResponse.BodyHandlers.discarding()));
+        }
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            assertThat(response.join().statusCode(), equalTo(200));
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private ConfigurableApplicationContext startGateway(String mode, String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + GATEWAY_THREADS,
+                "--server.tomcat.threads.min-spare=" + GATEWAY_THREADS,
+                "--logging.level.org.springframework.web.client.RestTemplate=INFO",
+                "--shareit-server.cache.enabled=false",
+                "--shareit-server.url=http://localhost:" + server.getAddress().getPort(),
+                "--shareit-server.http.mode=" + mode));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(ShareItGateway.class).run(arguments.toArray(new String[0]));
+    }
+
+    private HttpRequest request(ConfigurableApplicationContext gateway, String path) {
+        String port = gateway.getEnvironment().getProperty("local.server.port");
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("X-Sharer-User-Id", "7")
+                .build();
+    }
+
+    private HttpRequest batch(ConfigurableApplicationContext gateway, String body) {
+        String port = gateway.getEnvironment().getProperty("local.server.port");
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/bookings/batch"))
+                .header("X-Sharer-User-Id", "7")
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        try {
+            Thread.sleep(SERVER_DELAY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        forwardedPaths.add(exchange.getRequestURI().getPath());
+        forwardedUserIds.add(String.valueOf(exchange.getRequestHeaders().getFirst("X-Sharer-User-Id")));
+        forwardedBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        boolean missing = exchange.getRequestURI().getPath().endsWith("/404")
+                || String.valueOf(exchange.getRequestURI().getQuery()).endsWith("=404");
+        byte[] body = (missing ? NOT_FOUND : ITEM).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (!missing) {
+            exchange.getResponseHeaders().set("X-Next-Cursor", "cursor");
+        }
+        exchange.sendResponseHeaders(missing ? 404 : 200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
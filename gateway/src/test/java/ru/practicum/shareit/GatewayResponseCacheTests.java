@@ -0,0 +1,119 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.GatewayResponseCache;
+import ru.practicum.shareit.client.ResponseCacheProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+public class GatewayResponseCacheTests {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private GatewayResponseCache cache(boolean enabled, SimpleMeterRegistry meterRegistry) {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setEnabled(enabled);
+        return new GatewayResponseCache(properties, meterRegistry);
+    }
+
+    private Supplier<Mono<ResponseEntity<Object>>> server(HttpStatus status) {
+        return () -> Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return ResponseEntity.status(status).body(new byte[0]);
+        });
+    }
+
+    @Test
+    void cachesOkResponsesPerUser() {
+        GatewayResponseCache cache = cache(true, null);
+
+        cache.get("/items/1", "/items/1", 1L, server(HttpStatus.OK)).block();
+        cache.get("/items/1", "/items/1", 1L, server(HttpStatus.OK)).block();
+        assertThat(loads.get(), equalTo(1));
+
+        cache.get("/items/1", "/items/1", 2L, server(HttpStatus.OK)).block();
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    @Test
+    void doesNotCacheErrors() {
+        GatewayResponseCache cache = cache(true, null);
+
+        cache.get("/items/1", "/items/1", 1L, server(HttpStatus.NOT_FOUND)).block();
+        ResponseEntity<Object> response = cache.get("/items/1", "/items/1", 1L, server(HttpStatus.NOT_FOUND)).block();
+
+        assertThat(loads.get(), equalTo(2));
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    void mutationDropsOnlyItsResource() {
+        GatewayResponseCache cache = cache(true, null);
+        cache.get("/items/1", "/items/1", 1L, server(HttpStatus.OK)).block();
+        cache.get("/items/2", "/items/2", 1L, server(HttpStatus.OK)).block();
+        cache.get("/requests/all", "/requests/all?from=0&size=10", 1L, server(HttpStatus.OK)).block();
+
+        Mono<ResponseEntity<Object>> mutation = cache.invalidating(Mono.just(ResponseEntity.ok().build()), "/items/1");
+        assertThat(cache.size(), equalTo(3L));
+        mutation.block();
+
+        assertThat(cache.size(), equalTo(2L));
+        cache.get("/items/2", "/items/2", 1L, server(HttpStatus.OK)).block();
+        assertThat(loads.get(), equalTo(3));
+    }
+
+    @Test
+    void trailingSlashDropsWholeCollection() {
+        GatewayResponseCache cache = cache(true, null);
+        cache.get("/items/1", "/items/1", 1L, server(HttpStatus.OK)).block();
+        cache.get("/items/2", "/items/2", 2L, server(HttpStatus.OK)).block();
+        cache.get("/users/1", "/users/1", null, server(HttpStatus.OK)).block();
+
+        cache.invalidate("/items/");
+
+        assertThat(cache.size(), equalTo(1L));
+    }
+
+    @Test
+    void responseLoadedAcrossInvalidationIsNotStored() {
+        GatewayResponseCache cache = cache(true, null);
+
+        cache.get("/items/1", "/items/1", 1L, () -> Mono.fromSupplier(() -> {
+            cache.invalidate("/items/1");
+            return ResponseEntity.ok().build();
+        })).block();
+
+        assertThat(cache.size(), equalTo(0L));
+    }
+
+    @Test
+    void reportsHitRatio() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GatewayResponseCache cache = cache(true, meterRegistry);
+
+        cache.get("/users/1", "/users/1", null, server(HttpStatus.OK)).block();
+        cache.get("/users/1", "/users/1", null, server(HttpStatus.OK)).block();
+
+        assertThat(meterRegistry.get("gateway.responses.hit.ratio").gauge().value(), closeTo(0.5, 0.001));
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count(), equalTo(1.0));
+    }
+
+    @Test
+    void disabledCacheAlwaysForwards() {
+        GatewayResponseCache cache = cache(false, null);
+
+        cache.get("/users/1", "/users/1", null, server(HttpStatus.OK)).block();
+        cache.get("/users/1", "/users/1", null, server(HttpStatus.OK)).block();
+
+        assertThat(loads.get(), equalTo(2));
+    }
+}
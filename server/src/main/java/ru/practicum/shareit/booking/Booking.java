@@ -6,33 +6,55 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
 
 import javax.persistence.Id;
-import javax.persistence.Transient;
 import javax.persistence.Enumerated;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Table;
 import javax.persistence.GeneratedValue;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.GenerationType;
 import javax.persistence.EnumType;
+import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import java.time.LocalDateTime;
 
+/**
+ * {@code itemId} and {@code userId} are the written columns; {@code item} and {@code booker} are read-only
+ * lazy associations over the same columns, fetched together with the booking through {@link #WITH_ITEM_AND_BOOKER}.
+ * <p>
+ * The join fetches whole item and user rows although responses only embed their id and name. This replaced
+ * separate id-and-name projection queries: one round trip per page costs less here than the few unused
+ * columns, and the service needs the item owner anyway. If descriptions grow large, go back to projections.
+ */
 @Entity
 @Table(name = "bookings")
+@NamedEntityGraph(name = Booking.WITH_ITEM_AND_BOOKER, attributeNodes = {
+        @NamedAttributeNode("item"),
+        @NamedAttributeNode("booker")
+})
 @Getter
 @Setter
 public class Booking {
+    public static final String WITH_ITEM_AND_BOOKER = "Booking.withItemAndBooker";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private int id;
     @Column(name = "start_date")
     private LocalDateTime start;
     @Column(name = "end_date")
     private LocalDateTime end;
-    @Transient
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", insertable = false, updatable = false)
     private Item item;
     @Column(name = "item_id")
     private int itemId;
-    @Transient
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booker_id", insertable = false, updatable = false)
     private User booker;
     @Column(name = "booker_id")
     private int userId;
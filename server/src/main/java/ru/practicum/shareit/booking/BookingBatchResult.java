@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.validation.ValidationException;
+
+/**
+ * Outcome of one element of a batch request: the saved booking, or the error the single-booking
+ * endpoint would have answered with.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BookingBatchResult {
+    private final Booking booking;
+    private final ValidationException error;
+
+    public static BookingBatchResult saved(Booking booking) {
+        return new BookingBatchResult(booking, null);
+    }
+
+    public static BookingBatchResult failed(ValidationException error) {
+        return new BookingBatchResult(null, error);
+    }
+}
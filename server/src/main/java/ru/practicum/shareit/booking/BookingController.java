@@ -1,6 +1,10 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -11,9 +15,16 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingAvailabilityDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.exception.ErrorHandler;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
@@ -22,14 +33,40 @@ import java.util.stream.Collectors;
 @Validated
 public class BookingController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookingService bookingService;
 
+    private final BookingExporter bookingExporter;
+
     @PostMapping
     public BookingDto add(@RequestHeader("X-Sharer-User-Id") Integer userId,
                           @RequestBody BookingDto bookingDto) {
         return BookingMapper.toBookingDto(bookingService.addNewBooking(userId, BookingMapper.toBooking(bookingDto)));
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> addAll(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                              @RequestBody List<BookingDto> bookingDtos) {
+        List<Booking> bookings = bookingDtos.stream().map(BookingMapper::toBooking).collect(Collectors.toList());
+        return bookingService.addNewBookings(userId, bookings)
+                .stream()
+                .map(BookingController::toBatchResultDto)
+                .collect(Collectors.toList());
+    }
+
+    @PatchMapping("/batch")
+    public List<BookingBatchResultDto> putAll(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                              @RequestBody List<BookingApprovalDto> approvalDtos) {
+        List<BookingApproval> approvals = approvalDtos.stream()
+                .map(BookingMapper::toBookingApproval)
+                .collect(Collectors.toList());
+        return bookingService.putAll(userId, approvals)
+                .stream()
+                .map(BookingController::toBatchResultDto)
+                .collect(Collectors.toList());
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDto put(@RequestHeader("X-Sharer-User-Id") Integer userId,
                           @PathVariable int bookingId,
@@ -42,25 +79,89 @@ public class BookingController {
         return BookingMapper.toBookingDto(bookingService.getById(userId, id));
     }
 
+    @GetMapping("/availability")
+    public BookingAvailabilityDto getAvailability(@RequestParam int itemId,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime start,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime end) {
+        BookingAvailabilityDto availabilityDto = new BookingAvailabilityDto();
+        availabilityDto.setItemId(itemId);
+        availabilityDto.setStart(start);
+        availabilityDto.setEnd(end);
+        availabilityDto.setAvailable(bookingService.isAvailable(itemId, start, end));
+        return availabilityDto;
+    }
+
     @GetMapping()
-    public List<BookingDto> getByUser(@RequestHeader("X-Sharer-User-Id") Integer userId,
-                                      @RequestParam String state,
-                                      @RequestParam(required = false, defaultValue = "0") Integer from,
-                                      @RequestParam(required = false, defaultValue = "100") Integer size) {
-        return bookingService.getByUserId(userId, state, from, size)
+    public Object getByUser(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                            @RequestParam String state,
+                            @RequestParam(required = false, defaultValue = "0") Integer from,
+                            @RequestParam(required = false, defaultValue = "100") Integer size,
+                            @RequestParam(required = false) Set<String> fields) {
+        List<BookingDto> bookings = bookingService.getByUserId(userId, state, from, size)
                 .stream()
                 .map(BookingMapper::toBookingDto)
                 .collect(Collectors.toList());
+        return BookingFieldsConfig.withFields(bookings, fields);
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getByOwner(@RequestHeader("X-Sharer-User-Id") Integer userId,
-                                       @RequestParam String state,
-                                       @RequestParam(required = false, defaultValue = "0") Integer from,
-                                       @RequestParam(required = false, defaultValue = "100") Integer size) {
-        return bookingService.getByOwnerId(userId, state, from, size)
+    public Object getByOwner(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                             @RequestParam String state,
+                             @RequestParam(required = false, defaultValue = "0") Integer from,
+                             @RequestParam(required = false, defaultValue = "100") Integer size,
+                             @RequestParam(required = false) Set<String> fields) {
+        List<BookingDto> bookings = bookingService.getByOwnerId(userId, state, from, size)
                 .stream()
                 .map(BookingMapper::toBookingDto)
                 .collect(Collectors.toList());
+        return BookingFieldsConfig.withFields(bookings, fields);
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportByOwner(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                               @RequestParam(required = false, defaultValue = "ndjson")
+                                                               String format) {
+        BookingExportFormat exportFormat = BookingExportFormat.from(format);
+        bookingExporter.checkOwner(userId);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .body(out -> bookingExporter.export(userId, exportFormat, out));
+    }
+
+    @GetMapping(params = "after")
+    public ResponseEntity<Object> getByUserAfter(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                 @RequestParam String state,
+                                                 @RequestParam String after,
+                                                 @RequestParam(required = false, defaultValue = "100") Integer size,
+                                                 @RequestParam(required = false) Set<String> fields) {
+        return toCursorResponse(bookingService.getByUserIdAfter(userId, state, after, size), fields);
+    }
+
+    @GetMapping(path = "/owner", params = "after")
+    public ResponseEntity<Object> getByOwnerAfter(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                  @RequestParam String state,
+                                                  @RequestParam String after,
+                                                  @RequestParam(required = false, defaultValue = "100") Integer size,
+                                                  @RequestParam(required = false) Set<String> fields) {
+        return toCursorResponse(bookingService.getByOwnerIdAfter(userId, state, after, size), fields);
+    }
+
+    private ResponseEntity<Object> toCursorResponse(Slice<Booking> bookings, Set<String> fields) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (bookings.hasNext()) {
+            List<Booking> content = bookings.getContent();
+            response.header(NEXT_CURSOR_HEADER, BookingCursor.toToken(content.get(content.size() - 1)));
+        }
+        List<BookingDto> bookingDtos = bookings.stream()
+                .map(BookingMapper::toBookingDto)
+                .collect(Collectors.toList());
+        return response.body(BookingFieldsConfig.withFields(bookingDtos, fields));
+    }
+
+    private static BookingBatchResultDto toBatchResultDto(BookingBatchResult result) {
+        HttpStatus status = result.getError() == null ? HttpStatus.OK : ErrorHandler.statusOf(result.getError());
+        return BookingMapper.toBookingBatchResultDto(result, status);
     }
 }
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.exception.BookingCursorException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keyset position in a booking feed ordered by (end DESC, id DESC), serialized as "end,id".
+ * An empty token stands for the first page.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BookingCursor {
+    private static final LocalDateTime UNBOUNDED_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final LocalDateTime end;
+    private final int id;
+
+    public static BookingCursor parse(String token) {
+        if (token == null || token.isBlank()) {
+            return new BookingCursor(UNBOUNDED_END, Integer.MAX_VALUE);
+        }
+        String[] parts = token.split(",");
+        if (parts.length != 2) {
+            throw new BookingCursorException("Unknown cursor: " + token);
+        }
+        try {
+            return new BookingCursor(LocalDateTime.parse(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new BookingCursorException("Unknown cursor: " + token);
+        }
+    }
+
+    public static String toToken(Booking booking) {
+        return booking.getEnd() + "," + booking.getId();
+    }
+}
@@ -0,0 +1,105 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.user.UserRepository;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole booking history of an owner, newest first, as NDJSON or CSV. Bookings come from a
+ * forward-only cursor read {@link #FETCH_SIZE} rows at a time and are written as they arrive; the
+ * persistence context is cleared after every batch, so memory use does not grow with the history.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingExporter {
+    public static final int FETCH_SIZE = 500;
+
+    public static final String CSV_HEADER = "id,start,end,status,itemId,itemName,bookerId,bookerName";
+
+    private final BookingRepository repository;
+
+    private final UserRepository userRepository;
+
+    private final ItemRepository itemRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityManager entityManager;
+
+    /**
+     * Runs before the response is committed, so that a missing owner still gets a 404 instead of an empty export.
+     */
+    @Transactional(readOnly = true)
+    public void checkOwner(int userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        if (!itemRepository.existsByUserId(userId)) {
+            throw new NotFoundException("У пользователь не найдено вещей");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long export(int userId, BookingExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == BookingExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        long exported = 0;
+        try (Stream<Booking> bookings = repository.streamByOwnerId(userId)) {
+            Iterator<Booking> iterator = bookings.iterator();
+            while (iterator.hasNext()) {
+                write(BookingMapper.toBookingDto(iterator.next()), format, writer);
+                if (++exported % FETCH_SIZE == 0) {
+                    writer.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        writer.flush();
+        log.info("Booking export for ownerId={} finished: {} bookings", userId, exported);
+        return exported;
+    }
+
+    private void write(BookingDto booking, BookingExportFormat format, Writer writer) throws IOException {
+        if (format == BookingExportFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(booking));
+        } else {
+            writer.write(String.join(",",
+                    String.valueOf(booking.getId()),
+                    String.valueOf(booking.getStart()),
+                    String.valueOf(booking.getEnd()),
+                    String.valueOf(booking.getStatus()),
+                    String.valueOf(booking.getItem().getId()),
+                    csv(booking.getItem().getName()),
+                    String.valueOf(booking.getBooker().getId()),
+                    csv(booking.getBooker().getName())));
+        }
+        writer.write('\n');
+    }
+
+    private static String csv(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.util.Set;
+
+/**
+ * Booking lists accept {@code fields=id,status,...} to write only the named properties of each
+ * {@link BookingDto}. Responses without it, and every other endpoint, write all properties.
+ */
+@Configuration
+public class BookingFieldsConfig {
+
+    public static final String FILTER = "bookingFields";
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer bookingFieldsFilterCustomizer() {
+        return builder -> builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+    }
+
+    /**
+     * Unknown names are ignored, so a client asking for a property that does not exist gets the rest.
+     */
+    public static Object withFields(Object body, Set<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return body;
+        }
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider()
+                .addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+        return value;
+    }
+}
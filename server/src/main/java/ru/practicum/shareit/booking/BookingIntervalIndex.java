@@ -0,0 +1,160 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory index of approved booking intervals, kept per item as a sorted set of
+ * non-overlapping [start, end) intervals (start -> end). Overlapping or adjacent
+ * intervals are merged on insert, so an overlap check is a single floor lookup.
+ * <p>
+ * Approvals go through {@link #reserve}, which checks and inserts under the item's lock and takes the
+ * interval out again if the transaction rolls back. The index only sees approvals made by this instance.
+ * Intervals that have ended are dropped by a scheduled task.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+
+    private final BookingRepository repository;
+
+    private final Map<Integer, TreeMap<LocalDateTime, LocalDateTime>> intervals = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        intervals.clear();
+        int count = 0;
+        for (Booking booking : repository.findByStatusAndEndAfter(BookingStatus.APPROVED, LocalDateTime.now())) {
+            add(booking);
+            count++;
+        }
+        log.info("Booking interval index warmed up with {} approved bookings", count);
+    }
+
+    /**
+     * Records an approved booking that is already stored, as loaded on warm-up.
+     */
+    public void add(Booking booking) {
+        if (booking.getStatus() != BookingStatus.APPROVED
+                || booking.getStart() == null
+                || booking.getEnd() == null
+                || !booking.getStart().isBefore(booking.getEnd())) {
+            return;
+        }
+        intervals.compute(booking.getItemId(), (itemId, itemIntervals) -> {
+            TreeMap<LocalDateTime, LocalDateTime> result = itemIntervals == null ? new TreeMap<>() : itemIntervals;
+            synchronized (result) {
+                merge(result, booking.getStart(), booking.getEnd());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Takes [start, end) for an item being approved, unless it overlaps an approved booking. The check and
+     * the insert are atomic, so two concurrent approvals cannot both pass. If the surrounding transaction
+     * rolls back, the interval is released again.
+     *
+     * @return false if the interval overlaps an approved booking
+     */
+    public boolean reserve(int itemId, LocalDateTime start, LocalDateTime end) {
+        AtomicBoolean reserved = new AtomicBoolean();
+        intervals.compute(itemId, (id, itemIntervals) -> {
+            TreeMap<LocalDateTime, LocalDateTime> result = itemIntervals == null ? new TreeMap<>() : itemIntervals;
+            synchronized (result) {
+                if (!overlaps(result, start, end)) {
+                    // disjoint from the rest, so it is stored as is and can be removed as is
+                    result.put(start, end);
+                    reserved.set(true);
+                }
+            }
+            return result.isEmpty() ? null : result;
+        });
+        if (reserved.get() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        release(itemId, start, end);
+                    }
+                }
+            });
+        }
+        return reserved.get();
+    }
+
+    public boolean overlaps(int itemId, LocalDateTime start, LocalDateTime end) {
+        TreeMap<LocalDateTime, LocalDateTime> itemIntervals = intervals.get(itemId);
+        if (itemIntervals == null) {
+            return false;
+        }
+        synchronized (itemIntervals) {
+            return overlaps(itemIntervals, start, end);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.interval-index.prune-interval-ms:3600000}")
+    public void prune() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Integer itemId : intervals.keySet()) {
+            intervals.computeIfPresent(itemId, (id, itemIntervals) -> {
+                synchronized (itemIntervals) {
+                    // intervals are disjoint, so ends are ordered like starts
+                    while (!itemIntervals.isEmpty() && !itemIntervals.firstEntry().getValue().isAfter(now)) {
+                        itemIntervals.pollFirstEntry();
+                    }
+                    return itemIntervals.isEmpty() ? null : itemIntervals;
+                }
+            });
+        }
+    }
+
+    private void release(int itemId, LocalDateTime start, LocalDateTime end) {
+        intervals.computeIfPresent(itemId, (id, itemIntervals) -> {
+            synchronized (itemIntervals) {
+                itemIntervals.remove(start, end);
+                return itemIntervals.isEmpty() ? null : itemIntervals;
+            }
+        });
+    }
+
+    private static void merge(TreeMap<LocalDateTime, LocalDateTime> itemIntervals,
+                              LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, LocalDateTime> floor = itemIntervals.floorEntry(start);
+        if (floor != null && !floor.getValue().isBefore(start)) {
+            start = floor.getKey();
+            end = max(end, floor.getValue());
+            itemIntervals.remove(floor.getKey());
+        }
+        Map.Entry<LocalDateTime, LocalDateTime> next = itemIntervals.ceilingEntry(start);
+        while (next != null && !next.getKey().isAfter(end)) {
+            end = max(end, next.getValue());
+            itemIntervals.remove(next.getKey());
+            next = itemIntervals.ceilingEntry(start);
+        }
+        itemIntervals.put(start, end);
+    }
+
+    private static boolean overlaps(TreeMap<LocalDateTime, LocalDateTime> itemIntervals,
+                                    LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, LocalDateTime> candidate = itemIntervals.lowerEntry(end);
+        return candidate != null && candidate.getValue().isAfter(start);
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
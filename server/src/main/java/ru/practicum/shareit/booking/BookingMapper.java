@@ -1,8 +1,13 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookerDto;
+import ru.practicum.shareit.booking.dto.BookingItemDto;
 import ru.practicum.shareit.booking.dto.BookingInItem;
 
 @Component
@@ -14,8 +19,18 @@ public class BookingMapper {
         bookingDto.setId(booking.getId());
         bookingDto.setStart(booking.getStart());
         bookingDto.setEnd(booking.getEnd());
-        bookingDto.setItem(booking.getItem());
-        bookingDto.setBooker(booking.getBooker());
+        if (booking.getItem() != null) {
+            BookingItemDto itemDto = new BookingItemDto();
+            itemDto.setId(booking.getItem().getId());
+            itemDto.setName(booking.getItem().getName());
+            bookingDto.setItem(itemDto);
+        }
+        if (booking.getBooker() != null) {
+            BookerDto bookerDto = new BookerDto();
+            bookerDto.setId(booking.getBooker().getId());
+            bookerDto.setName(booking.getBooker().getName());
+            bookingDto.setBooker(bookerDto);
+        }
         bookingDto.setStatus(booking.getStatus());
         return bookingDto;
     }
@@ -25,12 +40,7 @@ public class BookingMapper {
         booking.setId(bookingDto.getId());
         booking.setStart(bookingDto.getStart());
         booking.setEnd(bookingDto.getEnd());
-        booking.setItem(bookingDto.getItem());
         booking.setItemId(bookingDto.getItemId());
-        booking.setBooker(bookingDto.getBooker());
-        if (bookingDto.getItem() != null) {
-            booking.setUserId(bookingDto.getBooker().getId());
-        }
         booking.setStatus(bookingDto.getStatus());
         return booking;
     }
@@ -43,4 +53,19 @@ public class BookingMapper {
         bookingInItem.setBookerId(booking.getUserId());
         return bookingInItem;
     }
+
+    public static BookingApproval toBookingApproval(BookingApprovalDto approvalDto) {
+        return new BookingApproval(approvalDto.getBookingId(), approvalDto.getApproved());
+    }
+
+    public static BookingBatchResultDto toBookingBatchResultDto(BookingBatchResult result, HttpStatus status) {
+        BookingBatchResultDto resultDto = new BookingBatchResultDto();
+        resultDto.setStatus(status.value());
+        if (result.getError() == null) {
+            resultDto.setBooking(toBookingDto(result.getBooking()));
+        } else {
+            resultDto.setError(result.getError().getMessage());
+        }
+        return resultDto;
+    }
 }
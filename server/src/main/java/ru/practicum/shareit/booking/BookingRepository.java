@@ -2,64 +2,196 @@ package ru.practicum.shareit.booking;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface BookingRepository extends JpaRepository<Booking, Integer> {
 
+    String AFTER_CURSOR = " AND (b.end < :cursorEnd OR (b.end = :cursorEnd AND b.id < :cursorId))";
+
+    /**
+     * Bookings of all items of an owner, joined on items.owner_id rather than filtered by a list of item ids.
+     */
+    String OWNER_BOOKINGS = "SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker WHERE i.userId = :ownerId";
+
+    String COUNT_OWNER_BOOKINGS = "SELECT count(b) FROM Booking b JOIN b.item i WHERE i.userId = :ownerId";
+
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findWithItemAndBookerById(int id);
+
     List<Booking> findByUserIdAndEndBeforeOrderByEndDesc(int bookerId, LocalDateTime end);
 
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
     Page<Booking> findByUserIdAndEndBefore(int bookerId, LocalDateTime end, Pageable pageable);
 
     List<Booking> findByUserIdOrderByEndDesc(int bookerId);
 
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
     Page<Booking> findByUserId(int bookerId, Pageable pageable);
 
     List<Booking> findByUserIdAndStartBeforeAndEndAfterOrderByEndDesc(int bookerId, LocalDateTime start, LocalDateTime end);
 
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
     Page<Booking> findByUserIdAndStartBeforeAndEndAfter(int bookerId, LocalDateTime start, LocalDateTime end,
                                                         Pageable pageable);
 
     List<Booking> findByUserIdAndStartAfterOrderByEndDesc(int bookerId, LocalDateTime start);
 
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
     Page<Booking> findByUserIdAndStartAfter(int bookerId, LocalDateTime start, Pageable pageable);
 
     List<Booking> findByUserIdAndStatusOrderByEndDesc(int bookerId, BookingStatus status);
 
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
     Page<Booking> findByUserIdAndStatus(int bookerId, BookingStatus status, Pageable pageable);
 
     List<Booking> findByItemIdInOrderByEndDesc(Collection<Integer> itemId);
 
-    Page<Booking> findByItemIdIn(Collection<Integer> itemId, Pageable pageable);
-
     List<Booking> findByItemIdInAndStartBeforeAndEndAfterOrderByEndDesc(Collection<Integer> itemId, LocalDateTime start,
                                                           LocalDateTime end);
 
-    Page<Booking> findByItemIdInAndStartBeforeAndEndAfter(Collection<Integer> itemId, LocalDateTime start,
-                                                          LocalDateTime end, Pageable pageable);
-
     List<Booking> findByItemIdInAndEndBeforeOrderByEndDesc(Collection<Integer> itemId, LocalDateTime end);
 
-    Page<Booking> findByItemIdInAndEndBefore(Collection<Integer> itemId, LocalDateTime end, Pageable pageable);
-
     List<Booking> findByItemIdInAndStartAfterOrderByEndDesc(Collection<Integer> itemId, LocalDateTime start);
 
-    Page<Booking> findByItemIdInAndStartAfter(Collection<Integer> itemId, LocalDateTime start, Pageable pageable);
-
     List<Booking> findByItemIdInAndStatusOrderByEndDesc(Collection<Integer> itemId, BookingStatus status);
 
-    Page<Booking> findByItemIdInAndStatus(Collection<Integer> itemId, BookingStatus status, Pageable pageable);
-
-    Booking findFirstByItemIdAndStartBeforeOrderByStartDesc(int itemId, LocalDateTime start);
-
-    List<Booking> findAllByStatusOrderByStartDesc(BookingStatus status);
-
-    Booking findFirstByItemIdAndStartAfterOrderByStartAsc(int itemId, LocalDateTime start);
-
-    List<Booking> findByItemIdIsAndStartAfterAndEndBeforeAndStatus(int itemId, LocalDateTime start, LocalDateTime end, BookingStatus status);
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    @Query("SELECT b FROM Booking b WHERE b.userId = :bookerId" + AFTER_CURSOR)
+    Slice<Booking> findByUserIdAfterCursor(@Param("bookerId") int bookerId,
+                                           @Param("cursorEnd") LocalDateTime cursorEnd,
+                                           @Param("cursorId") int cursorId,
+                                           Pageable pageable);
+
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    @Query("SELECT b FROM Booking b WHERE b.userId = :bookerId AND b.start < :now AND b.end > :now" + AFTER_CURSOR)
+    Slice<Booking> findCurrentByUserIdAfterCursor(@Param("bookerId") int bookerId,
+                                                  @Param("now") LocalDateTime now,
+                                                  @Param("cursorEnd") LocalDateTime cursorEnd,
+                                                  @Param("cursorId") int cursorId,
+                                                  Pageable pageable);
+
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    @Query("SELECT b FROM Booking b WHERE b.userId = :bookerId AND b.end < :now" + AFTER_CURSOR)
+    Slice<Booking> findPastByUserIdAfterCursor(@Param("bookerId") int bookerId,
+                                               @Param("now") LocalDateTime now,
+                                               @Param("cursorEnd") LocalDateTime cursorEnd,
+                                               @Param("cursorId") int cursorId,
+                                               Pageable pageable);
+
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    @Query("SELECT b FROM Booking b WHERE b.userId = :bookerId AND b.start > :now" + AFTER_CURSOR)
+    Slice<Booking> findFutureByUserIdAfterCursor(@Param("bookerId") int bookerId,
+                                                 @Param("now") LocalDateTime now,
+                                                 @Param("cursorEnd") LocalDateTime cursorEnd,
+                                                 @Param("cursorId") int cursorId,
+                                                 Pageable pageable);
+
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    @Query("SELECT b FROM Booking b WHERE b.userId = :bookerId AND b.status = :status" + AFTER_CURSOR)
+    Slice<Booking> findByUserIdAndStatusAfterCursor(@Param("bookerId") int bookerId,
+                                                    @Param("status") BookingStatus status,
+                                                    @Param("cursorEnd") LocalDateTime cursorEnd,
+                                                    @Param("cursorId") int cursorId,
+                                                    Pageable pageable);
+
+    @Query(value = OWNER_BOOKINGS, countQuery = COUNT_OWNER_BOOKINGS)
+    Page<Booking> findByOwnerId(@Param("ownerId") int ownerId, Pageable pageable);
+
+    @Query(value = OWNER_BOOKINGS + " AND b.start < :now AND b.end > :now",
+            countQuery = COUNT_OWNER_BOOKINGS + " AND b.start < :now AND b.end > :now")
+    Page<Booking> findCurrentByOwnerId(@Param("ownerId") int ownerId,
+                                       @Param("now") LocalDateTime now,
+                                       Pageable pageable);
+
+    @Query(value = OWNER_BOOKINGS + " AND b.end < :now",
+            countQuery = COUNT_OWNER_BOOKINGS + " AND b.end < :now")
+    Page<Booking> findPastByOwnerId(@Param("ownerId") int ownerId,
+                                    @Param("now") LocalDateTime now,
+                                    Pageable pageable);
+
+    @Query(value = OWNER_BOOKINGS + " AND b.start > :now",
+            countQuery = COUNT_OWNER_BOOKINGS + " AND b.start > :now")
+    Page<Booking> findFutureByOwnerId(@Param("ownerId") int ownerId,
+                                      @Param("now") LocalDateTime now,
+                                      Pageable pageable);
+
+    @Query(value = OWNER_BOOKINGS + " AND b.status = :status",
+            countQuery = COUNT_OWNER_BOOKINGS + " AND b.status = :status")
+    Page<Booking> findByOwnerIdAndStatus(@Param("ownerId") int ownerId,
+                                         @Param("status") BookingStatus status,
+                                         Pageable pageable);
+
+    @Query(OWNER_BOOKINGS + AFTER_CURSOR)
+    Slice<Booking> findByOwnerIdAfterCursor(@Param("ownerId") int ownerId,
+                                            @Param("cursorEnd") LocalDateTime cursorEnd,
+                                            @Param("cursorId") int cursorId,
+                                            Pageable pageable);
+
+    @Query(OWNER_BOOKINGS + " AND b.start < :now AND b.end > :now" + AFTER_CURSOR)
+    Slice<Booking> findCurrentByOwnerIdAfterCursor(@Param("ownerId") int ownerId,
+                                                   @Param("now") LocalDateTime now,
+                                                   @Param("cursorEnd") LocalDateTime cursorEnd,
+                                                   @Param("cursorId") int cursorId,
+                                                   Pageable pageable);
+
+    @Query(OWNER_BOOKINGS + " AND b.end < :now" + AFTER_CURSOR)
+    Slice<Booking> findPastByOwnerIdAfterCursor(@Param("ownerId") int ownerId,
+                                                @Param("now") LocalDateTime now,
+                                                @Param("cursorEnd") LocalDateTime cursorEnd,
+                                                @Param("cursorId") int cursorId,
+                                                Pageable pageable);
+
+    @Query(OWNER_BOOKINGS + " AND b.start > :now" + AFTER_CURSOR)
+    Slice<Booking> findFutureByOwnerIdAfterCursor(@Param("ownerId") int ownerId,
+                                                  @Param("now") LocalDateTime now,
+                                                  @Param("cursorEnd") LocalDateTime cursorEnd,
+                                                  @Param("cursorId") int cursorId,
+                                                  Pageable pageable);
+
+    @Query(OWNER_BOOKINGS + " AND b.status = :status" + AFTER_CURSOR)
+    Slice<Booking> findByOwnerIdAndStatusAfterCursor(@Param("ownerId") int ownerId,
+                                                     @Param("status") BookingStatus status,
+                                                     @Param("cursorEnd") LocalDateTime cursorEnd,
+                                                     @Param("cursorId") int cursorId,
+                                                     Pageable pageable);
+
+    /**
+     * Read through a forward-only cursor; must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + BookingExporter.FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query(OWNER_BOOKINGS + " ORDER BY b.end DESC, b.id DESC")
+    Stream<Booking> streamByOwnerId(@Param("ownerId") int ownerId);
+
+    @Query(
+            nativeQuery = true,
+            value = "SELECT id, start_date, end_date, item_id, booker_id, status FROM (" +
+                    "SELECT b.*, ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_date DESC) AS rn " +
+                    "FROM bookings b WHERE b.status = :status AND b.start_date <= :now" +
+                    ") last_bookings WHERE rn = 1"
+    )
+    List<Booking> findLastBookings(@Param("status") String status, @Param("now") LocalDateTime now);
+
+    List<Booking> findByStatusAndStartAfter(BookingStatus status, LocalDateTime start);
+
+    List<Booking> findByStatusAndEndAfter(BookingStatus status, LocalDateTime end);
 
     List<Booking> findByItemIdAndUserIdAndEndBeforeAndStatus(int itemId, int userId, LocalDateTime end, BookingStatus status);
 
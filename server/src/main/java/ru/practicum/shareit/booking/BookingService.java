@@ -1,15 +1,29 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface BookingService {
     Booking addNewBooking(int userId, Booking booking);
 
     Booking put(int userId, int id, boolean isApproved);
 
+    List<BookingBatchResult> addNewBookings(int userId, List<Booking> bookings);
+
+    List<BookingBatchResult> putAll(int userId, List<BookingApproval> approvals);
+
     Booking getById(int userId, int id);
 
+    boolean isAvailable(int itemId, LocalDateTime start, LocalDateTime end);
+
     Page<Booking> getByUserId(int userId, String state, int from, int size);
 
     Page<Booking> getByOwnerId(int userId, String state, int from, int size);
+
+    Slice<Booking> getByUserIdAfter(int userId, String state, String after, int size);
+
+    Slice<Booking> getByOwnerIdAfter(int userId, String state, String after, int size);
 }
@@ -1,9 +1,11 @@
 package ru.practicum.shareit.booking;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,16 +17,22 @@ import ru.practicum.shareit.exception.WrongOwnerException;
 import ru.practicum.shareit.exception.UnsupportedStateException;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.metrics.MetricsConfig;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
+import javax.validation.ValidationException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @Transactional
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
@@ -35,6 +43,10 @@ public class BookingServiceImpl implements BookingService {
     private final UserRepository userRepository;
     @Autowired
     private final ItemRepository itemRepository;
+    @Autowired
+    private final BookingIntervalIndex intervalIndex;
+    @Autowired
+    private final ItemBookingProjection bookingProjection;
 
     @Transactional
     @Override
@@ -43,31 +55,7 @@ public class BookingServiceImpl implements BookingService {
         if (user.isPresent()) {
             Optional<Item> item = itemRepository.findById(booking.getItemId());
             if (item.isPresent()) {
-                if (!item.get().getAvailable()) {
-                    throw new ItemNotAvailableException("Вещь недоступна для бронирования!");
-                }
-                List<Booking> bookings = repository.findByItemIdIsAndStartAfterAndEndBeforeAndStatus(
-                        item.get().getId(),
-                        LocalDateTime.now(),
-                        LocalDateTime.now(),
-                        BookingStatus.APPROVED
-                );
-                if (item.get().getUserId() == userId) {
-                    throw new NotFoundException("Вещь не найдена!");
-                }
-                if (!bookings.isEmpty()) {
-                    throw new ItemNotAvailableException("Вещь недоступна для бронирования!");
-                }
-                if (booking.getStart().isAfter(booking.getEnd())) {
-                    throw new BookingDateException("Дата начала бронирования не может быть позже даты его окончания!");
-                }
-                if (booking.getStart().isBefore(LocalDateTime.now())) {
-                    throw new BookingDateException("Дата начала бронирования не может быть в прошлом!");
-                }
-                booking.setStatus(BookingStatus.WAITING);
-                booking.setBooker(user.get());
-                booking.setUserId(userId);
-                booking.setItem(item.get());
+                prepareNewBooking(user.get(), item.get(), booking);
                 return repository.save(booking);
             } else {
                 throw new NotFoundException("Вещь не найдена!");
@@ -84,57 +72,131 @@ public class BookingServiceImpl implements BookingService {
         if (foundUser.isEmpty()) {
             throw new NotFoundException("Пользователь не найден");
         }
-        Optional<Booking> foundBooking = repository.findById(id);
-        if (foundBooking.isPresent()) {
-            Booking booking = foundBooking.get();
-            if (!booking.getStatus().equals(BookingStatus.WAITING)) {
-                throw new BookingStatusException("Текущий статус бронирования не позволяет вносить изменения");
+        Booking booking = repository.findWithItemAndBookerById(id)
+                .orElseThrow(() -> new NotFoundException("Бронирование не найдено"));
+        if (!booking.getStatus().equals(BookingStatus.WAITING)) {
+            throw new BookingStatusException("Текущий статус бронирования не позволяет вносить изменения");
+        }
+        Item item = booking.getItem();
+        if (item == null || item.getUserId() != userId || booking.getBooker() == null) {
+            throw new WrongOwnerException("Пользователь не является владельцем вещи");
+        }
+        decide(booking, item, booking.getBooker(), isApproved);
+        Booking savedBooking = repository.save(booking);
+        bookingProjection.add(savedBooking);
+        return savedBooking;
+    }
+
+    @Transactional
+    @Override
+    public List<BookingBatchResult> addNewBookings(int userId, List<Booking> bookings) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+        Set<Integer> itemIds = bookings.stream().map(Booking::getItemId).collect(Collectors.toSet());
+        Map<Integer, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<BookingBatchResult> results = new ArrayList<>(bookings.size());
+        List<Booking> accepted = new ArrayList<>();
+        for (Booking booking : bookings) {
+            try {
+                Item item = items.get(booking.getItemId());
+                if (item == null) {
+                    throw new NotFoundException("Вещь не найдена!");
+                }
+                prepareNewBooking(user, item, booking);
+                accepted.add(booking);
+                results.add(BookingBatchResult.saved(booking));
+            } catch (ValidationException e) {
+                results.add(BookingBatchResult.failed(e));
             }
-            Optional<Item> foundItem = itemRepository.findByIdAndUserId(booking.getItemId(), userId);
-            Optional<User> foundBooker = userRepository.findById(booking.getUserId());
-            if (foundItem.isPresent() && foundBooker.isPresent()) {
-                booking.setItem(foundItem.get());
-                booking.setBooker(foundBooker.get());
-                booking.setStatus(isApproved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
-                return repository.save(booking);
-            } else {
-                throw new WrongOwnerException("Пользователь не является владельцем вещи");
+        }
+        repository.saveAll(accepted);
+        return results;
+    }
+
+    @Transactional
+    @Override
+    public List<BookingBatchResult> putAll(int userId, List<BookingApproval> approvals) {
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        Set<Integer> bookingIds = approvals.stream().map(BookingApproval::getBookingId).collect(Collectors.toSet());
+        Map<Integer, Booking> bookings = repository.findAllById(bookingIds).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        Set<Integer> itemIds = bookings.values().stream().map(Booking::getItemId).collect(Collectors.toSet());
+        Map<Integer, Item> ownedItems = itemRepository.findAllById(itemIds).stream()
+                .filter(item -> item.getUserId() == userId)
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        Set<Integer> bookerIds = bookings.values().stream().map(Booking::getUserId).collect(Collectors.toSet());
+        Map<Integer, User> bookers = userRepository.findAllById(bookerIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<BookingBatchResult> results = new ArrayList<>(approvals.size());
+        List<Booking> decided = new ArrayList<>();
+        for (BookingApproval approval : approvals) {
+            try {
+                Booking booking = bookings.get(approval.getBookingId());
+                if (booking == null) {
+                    throw new NotFoundException("Бронирование не найдено");
+                }
+                if (approval.getApproved() == null) {
+                    throw new BookingStatusException("Не указано, подтверждено ли бронирование");
+                }
+                if (!booking.getStatus().equals(BookingStatus.WAITING)) {
+                    throw new BookingStatusException("Текущий статус бронирования не позволяет вносить изменения");
+                }
+                Item item = ownedItems.get(booking.getItemId());
+                User booker = bookers.get(booking.getUserId());
+                if (item == null || booker == null) {
+                    throw new WrongOwnerException("Пользователь не является владельцем вещи");
+                }
+                // an approval reserves its interval, so later approvals in the same batch see it
+                decide(booking, item, booker, approval.getApproved());
+                decided.add(booking);
+                results.add(BookingBatchResult.saved(booking));
+            } catch (ValidationException e) {
+                results.add(BookingBatchResult.failed(e));
             }
-        } else {
-            throw new NotFoundException("Бронирование не найдено");
         }
+        repository.saveAll(decided);
+        decided.forEach(bookingProjection::add);
+        return results;
     }
 
     @Transactional(readOnly = true)
     @Override
     public Booking getById(int userId, int id) {
-        Optional<Booking> foundBooking = repository.findById(id);
-        if (foundBooking.isPresent()) {
-            Booking booking = foundBooking.get();
-            Optional<Item> foundItem = itemRepository.findById(booking.getItemId());
-            Optional<User> foundBooker = userRepository.findById(booking.getUserId());
-            if (foundBooker.isPresent() && foundItem.isPresent()) {
-                if (foundItem.get().getUserId() == userId || booking.getUserId() == userId) {
-                    booking.setItem(foundItem.get());
-                    booking.setBooker(foundBooker.get());
-                    return booking;
-                } else {
-                    throw new WrongOwnerException("У пользователя недостаточно прав для просмотра данного бронирования");
-                }
-            } else {
-                throw new NotFoundException("Вещь не найдена");
-            }
+        Booking booking = repository.findWithItemAndBookerById(id)
+                .orElseThrow(() -> new NotFoundException("Бронирование не найдено"));
+        if (booking.getItem() == null || booking.getBooker() == null) {
+            throw new NotFoundException("Вещь не найдена");
+        }
+        if (booking.getItem().getUserId() == userId || booking.getUserId() == userId) {
+            return booking;
         } else {
-            throw new NotFoundException("Бронирование не найдено");
+            throw new WrongOwnerException("У пользователя недостаточно прав для просмотра данного бронирования");
         }
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public boolean isAvailable(int itemId, LocalDateTime start, LocalDateTime end) {
+        Optional<Item> foundItem = itemRepository.findById(itemId);
+        if (foundItem.isEmpty()) {
+            throw new NotFoundException("Вещь не найдена!");
+        }
+        if (!start.isBefore(end)) {
+            throw new BookingDateException("Дата начала бронирования не может быть позже даты его окончания!");
+        }
+        return foundItem.get().getAvailable() && !intervalIndex.overlaps(itemId, start, end);
+    }
+
     @Transactional
     @Override
     public Page<Booking> getByUserId(int userId, String requestedState, int from, int size) {
 
         State state = getRequestedState(requestedState);
-        User booker = checkUser(userId);
+        checkUser(userId);
         Page<Booking> bookings;
         PageRequest pageRequest = PageRequest.of(from / size, size, Sort.by(Sort.Direction.DESC, "end"));
 
@@ -162,12 +224,6 @@ public class BookingServiceImpl implements BookingService {
                 throw new UnsupportedStateException("Unknown state: " + state);
         }
 
-        List<Item> allItems = getAllItems();
-        for (Booking booking : bookings) {
-            fillItem(booking, allItems);
-            booking.setBooker(booker);
-        }
-
         return bookings;
     }
 
@@ -178,46 +234,130 @@ public class BookingServiceImpl implements BookingService {
         State state = getRequestedState(requestedState);
 
         checkUser(userId);
-        List<Item> userItems = checkUserItems(userId);
-
-        Set<Integer> itemId = userItems.stream().map(Item::getId).collect(Collectors.toSet());
         PageRequest pageRequest = PageRequest.of(from / size, size, Sort.by(Sort.Direction.DESC, "end"));
         Page<Booking> bookings;
 
         switch (state) {
             case ALL:
-                bookings = repository.findByItemIdIn(itemId, pageRequest);
+                bookings = repository.findByOwnerId(userId, pageRequest);
                 break;
             case CURRENT:
-                bookings = repository.findByItemIdInAndStartBeforeAndEndAfter(itemId, LocalDateTime.now(),
-                        LocalDateTime.now(), pageRequest);
+                bookings = repository.findCurrentByOwnerId(userId, LocalDateTime.now(), pageRequest);
                 break;
             case PAST:
-                bookings = repository.findByItemIdInAndEndBefore(itemId, LocalDateTime.now(), pageRequest);
+                bookings = repository.findPastByOwnerId(userId, LocalDateTime.now(), pageRequest);
                 break;
             case FUTURE:
-                bookings = repository.findByItemIdInAndStartAfter(itemId, LocalDateTime.now(), pageRequest);
+                bookings = repository.findFutureByOwnerId(userId, LocalDateTime.now(), pageRequest);
                 break;
             case WAITING:
-                bookings = repository.findByItemIdInAndStatus(itemId, BookingStatus.WAITING, pageRequest);
+                bookings = repository.findByOwnerIdAndStatus(userId, BookingStatus.WAITING, pageRequest);
                 break;
             case REJECTED:
-                bookings = repository.findByItemIdInAndStatus(itemId, BookingStatus.REJECTED, pageRequest);
+                bookings = repository.findByOwnerIdAndStatus(userId, BookingStatus.REJECTED, pageRequest);
                 break;
             default:
                 throw new UnsupportedStateException("Unknown state: " + state);
         }
 
-        List<Item> allItems = getAllItems();
-        List<User> allUsers = getAllUsers();
-        for (Booking booking : bookings) {
-            fillItem(booking, allItems);
-            fillUser(booking, allUsers);
+        if (bookings.isEmpty()) {
+            checkUserItems(userId);
         }
 
         return bookings;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public Slice<Booking> getByUserIdAfter(int userId, String requestedState, String after, int size) {
+
+        State state = getRequestedState(requestedState);
+        checkUser(userId);
+        BookingCursor cursor = BookingCursor.parse(after);
+        Slice<Booking> bookings;
+        PageRequest pageRequest = getCursorPageRequest(size);
+
+        switch (state) {
+            case ALL:
+                bookings = repository.findByUserIdAfterCursor(userId, cursor.getEnd(), cursor.getId(), pageRequest);
+                break;
+            case CURRENT:
+                bookings = repository.findCurrentByUserIdAfterCursor(userId, LocalDateTime.now(),
+                        cursor.getEnd(), cursor.getId(), pageRequest);
+                break;
+            case PAST:
+                bookings = repository.findPastByUserIdAfterCursor(userId, LocalDateTime.now(),
+                        cursor.getEnd(), cursor.getId(), pageRequest);
+                break;
+            case FUTURE:
+                bookings = repository.findFutureByUserIdAfterCursor(userId, LocalDateTime.now(),
+                        cursor.getEnd(), cursor.getId(), pageRequest);
+                break;
+            case WAITING:
+                bookings = repository.findByUserIdAndStatusAfterCursor(userId, BookingStatus.WAITING,
+                        cursor.getEnd(), cursor.getId(), pageRequest);
+                break;
+            case REJECTED:
+                bookings = repository.findByUserIdAndStatusAfterCursor(userId, BookingStatus.REJECTED,
+                        cursor.getEnd(), cursor.getId(), pageRequest);
+                break;
+            default:
+                throw new UnsupportedStateException("Unknown state: " + state);
+        }
+
+        return bookings;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Slice<Booking> getByOwnerIdAfter(int userId, String requestedState, String after, int size) {
+
+        State state = getRequestedState(requestedState);
+
+        checkUser(userId);
+        BookingCursor cursor = BookingCursor.parse(after);
+        PageRequest pageRequest = getCursorPageRequest(size);
+        Slice<Booking> bookings;
+
+        switch (state) {
+            case ALL:
+                bookings = repository.findByOwnerIdAfterCursor(userId, cursor.getEnd(), cursor.getId(), pageRequest);
+                break;
+            case CURRENT:
+                bookings = repository.findCurrentByOwnerIdAfterCursor(userId, LocalDateTime.now(),
+                        cursor.getEnd(), cursor.getId(), pageRequest);
+                break;
+            case PAST:
+                bookings = repository.findPastByOwnerIdAfterCursor(userId, LocalDateTime.now(),
+                        cursor.getEnd(), cursor.getId(), pageRequest);
+                break;
+            case FUTURE:
+                bookings = repository.findFutureByOwnerIdAfterCursor(userId, LocalDateTime.now(),
+                        cursor.getEnd(), cursor.getId(), pageRequest);
+                break;
+            case WAITING:
+                bookings = repository.findByOwnerIdAndStatusAfterCursor(userId, BookingStatus.WAITING,
+                        cursor.getEnd(), cursor.getId(), pageRequest);
+                break;
+            case REJECTED:
+                bookings = repository.findByOwnerIdAndStatusAfterCursor(userId, BookingStatus.REJECTED,
+                        cursor.getEnd(), cursor.getId(), pageRequest);
+                break;
+            default:
+                throw new UnsupportedStateException("Unknown state: " + state);
+        }
+
+        if (bookings.isEmpty()) {
+            checkUserItems(userId);
+        }
+
+        return bookings;
+    }
+
+    private PageRequest getCursorPageRequest(int size) {
+        return PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "end").and(Sort.by(Sort.Direction.DESC, "id")));
+    }
+
     private State getRequestedState(String requestedState) {
         try {
             State.valueOf(requestedState);
@@ -236,29 +376,46 @@ public class BookingServiceImpl implements BookingService {
         return foundUser.get();
     }
 
-    private List<Item> checkUserItems(int userId) {
-        List<Item> userItems = itemRepository.findAllByUserIdOrderById(userId);
-        if (userItems.isEmpty()) {
+    /**
+     * Called only for an empty page, so owners with bookings are not checked for items separately.
+     */
+    private void checkUserItems(int userId) {
+        if (!itemRepository.existsByUserId(userId)) {
             throw new NotFoundException("У пользователь не найдено вещей");
         }
-        return userItems;
-    }
-
-    private List<Item> getAllItems() {
-        return itemRepository.findAll();
-    }
-
-    private List<User> getAllUsers() {
-        return userRepository.findAll();
     }
 
-    private void fillItem(Booking booking, List<Item> allItems) {
-        Optional<Item> foundItem = allItems.stream().filter(x -> x.getId() == booking.getItemId()).findFirst();
-        foundItem.ifPresent(booking::setItem);
+    private void prepareNewBooking(User user, Item item, Booking booking) {
+        if (!item.getAvailable()) {
+            throw new ItemNotAvailableException("Вещь недоступна для бронирования!");
+        }
+        if (item.getUserId() == user.getId()) {
+            throw new NotFoundException("Вещь не найдена!");
+        }
+        if (booking.getStart() == null || booking.getEnd() == null) {
+            throw new BookingDateException("Не указаны даты бронирования!");
+        }
+        if (booking.getStart().isAfter(booking.getEnd())) {
+            throw new BookingDateException("Дата начала бронирования не может быть позже даты его окончания!");
+        }
+        if (booking.getStart().isBefore(LocalDateTime.now())) {
+            throw new BookingDateException("Дата начала бронирования не может быть в прошлом!");
+        }
+        if (intervalIndex.overlaps(item.getId(), booking.getStart(), booking.getEnd())) {
+            throw new ItemNotAvailableException("Вещь недоступна для бронирования!");
+        }
+        booking.setStatus(BookingStatus.WAITING);
+        booking.setBooker(user);
+        booking.setUserId(user.getId());
+        booking.setItem(item);
     }
 
-    private void fillUser(Booking booking, List<User> allUsers) {
-        Optional<User> foundBooker = allUsers.stream().filter(x -> x.getId() == booking.getUserId()).findFirst();
-        foundBooker.ifPresent(booking::setBooker);
+    private void decide(Booking booking, Item item, User booker, boolean isApproved) {
+        if (isApproved && !intervalIndex.reserve(booking.getItemId(), booking.getStart(), booking.getEnd())) {
+            throw new ItemNotAvailableException("Вещь недоступна для бронирования!");
+        }
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(isApproved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
     }
 }
@@ -0,0 +1,165 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingInItem;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Last and next approved booking of every item, so that item reads need a single keyed lookup.
+ * Approved bookings are added by {@link BookingServiceImpl#put}; a scheduled task moves bookings that
+ * have started from the upcoming queue of their item to its last booking.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ItemBookingProjection {
+
+    private static final Comparator<Pending> BY_START =
+            Comparator.comparing((Pending pending) -> pending.booking.getStart())
+                    .thenComparingInt(pending -> pending.booking.getId());
+
+    private final BookingRepository repository;
+
+    private final Map<Integer, ItemBookings> items = new ConcurrentHashMap<>();
+
+    private final NavigableSet<Pending> pending = new ConcurrentSkipListSet<>(BY_START);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        items.clear();
+        pending.clear();
+        LocalDateTime now = LocalDateTime.now();
+        for (Booking booking : repository.findLastBookings(BookingStatus.APPROVED.name(), now)) {
+            put(booking, now);
+        }
+        for (Booking booking : repository.findByStatusAndStartAfter(BookingStatus.APPROVED, now)) {
+            put(booking, now);
+        }
+        log.info("Item booking projection warmed up for {} items", items.size());
+    }
+
+    /**
+     * Records an approved booking. If the surrounding transaction rolls back, the booking is taken out again.
+     */
+    public void add(Booking booking) {
+        if (booking.getStatus() != BookingStatus.APPROVED) {
+            return;
+        }
+        BookingInItem previousLast = put(booking, LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        remove(booking.getItemId(), booking.getId(), previousLast);
+                    }
+                }
+            });
+        }
+    }
+
+    public BookingInItem getLastBooking(int itemId) {
+        ItemBookings bookings = items.get(itemId);
+        return bookings == null ? null : bookings.last(LocalDateTime.now());
+    }
+
+    public BookingInItem getNextBooking(int itemId) {
+        ItemBookings bookings = items.get(itemId);
+        return bookings == null ? null : bookings.next(LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.projection.advance-interval-ms:60000}")
+    public void advance() {
+        LocalDateTime now = LocalDateTime.now();
+        Pending first = pending.isEmpty() ? null : pending.first();
+        while (first != null && !first.booking.getStart().isAfter(now)) {
+            pending.remove(first);
+            items.get(first.itemId).advance(now);
+            first = pending.isEmpty() ? null : pending.first();
+        }
+    }
+
+    private BookingInItem put(Booking booking, LocalDateTime now) {
+        BookingInItem bookingInItem = BookingMapper.toBookingInItem(booking);
+        ItemBookings bookings = items.computeIfAbsent(booking.getItemId(), x -> new ItemBookings());
+        BookingInItem previousLast = bookings.put(bookingInItem, now);
+        if (bookingInItem.getStart().isAfter(now)) {
+            pending.add(new Pending(booking.getItemId(), bookingInItem));
+        }
+        return previousLast;
+    }
+
+    private void remove(int itemId, int bookingId, BookingInItem previousLast) {
+        pending.removeIf(x -> x.booking.getId() == bookingId);
+        ItemBookings bookings = items.get(itemId);
+        if (bookings != null) {
+            bookings.remove(bookingId, previousLast);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Pending {
+        private final int itemId;
+        private final BookingInItem booking;
+    }
+
+    private static final class ItemBookings {
+        private BookingInItem last;
+        private final TreeSet<BookingInItem> upcoming = new TreeSet<>(
+                Comparator.comparing(BookingInItem::getStart).thenComparingInt(BookingInItem::getId));
+
+        synchronized BookingInItem put(BookingInItem booking, LocalDateTime now) {
+            BookingInItem previousLast = last;
+            if (booking.getStart().isAfter(now)) {
+                upcoming.add(booking);
+            } else {
+                setLast(booking);
+            }
+            return previousLast;
+        }
+
+        synchronized void remove(int bookingId, BookingInItem previousLast) {
+            upcoming.removeIf(x -> x.getId() == bookingId);
+            if (last != null && last.getId() == bookingId) {
+                last = previousLast;
+            }
+        }
+
+        synchronized void advance(LocalDateTime now) {
+            while (!upcoming.isEmpty() && !upcoming.first().getStart().isAfter(now)) {
+                setLast(upcoming.pollFirst());
+            }
+        }
+
+        // reads advance too, so a booking that started since the last scheduled run is not reported as next
+        synchronized BookingInItem last(LocalDateTime now) {
+            advance(now);
+            return last;
+        }
+
+        synchronized BookingInItem next(LocalDateTime now) {
+            advance(now);
+            return upcoming.isEmpty() ? null : upcoming.first();
+        }
+
+        private void setLast(BookingInItem booking) {
+            if (last == null || booking.getStart().isAfter(last.getStart())) {
+                last = booking;
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+@Data
+public class BookingBatchResultDto {
+    private int status;
+    private BookingDto booking;
+    private String error;
+}
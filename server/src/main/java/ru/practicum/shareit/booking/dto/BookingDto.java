@@ -1,19 +1,20 @@
 package ru.practicum.shareit.booking.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.Data;
+import ru.practicum.shareit.booking.BookingFieldsConfig;
 import ru.practicum.shareit.booking.BookingStatus;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.User;
 
 import java.time.LocalDateTime;
 
 @Data
+@JsonFilter(BookingFieldsConfig.FILTER)
 public class BookingDto {
     private int id;
     private LocalDateTime start;
     private LocalDateTime end;
     private int itemId;
-    private Item item;
-    private User booker;
+    private BookingItemDto item;
+    private BookerDto booker;
     private BookingStatus status;
 }
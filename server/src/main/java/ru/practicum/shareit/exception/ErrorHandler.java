@@ -1,15 +1,29 @@
 package ru.practicum.shareit.exception;
 
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.ExceptionHandlerMethodResolver;
 
 import javax.validation.ValidationException;
+import java.lang.reflect.Method;
 
 @RestControllerAdvice
 public class ErrorHandler {
+    private static final ExceptionHandlerMethodResolver RESOLVER = new ExceptionHandlerMethodResolver(ErrorHandler.class);
+
+    /**
+     * Status the handler below would answer the exception with, for errors reported inside a response body.
+     */
+    public static HttpStatus statusOf(Throwable e) {
+        Method handler = RESOLVER.resolveMethodByThrowable(e);
+        ResponseStatus status = AnnotatedElementUtils.findMergedAnnotation(handler, ResponseStatus.class);
+        return status.code();
+    }
+
     @ExceptionHandler(ValidationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleValidationException(final ValidationException e) {
@@ -64,6 +78,18 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage());
     }
 
+    @ExceptionHandler(BookingCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleBookingCursor(final BookingCursorException e) {
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(UnsupportedFormatException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleUnsupportedFormat(final UnsupportedFormatException e) {
+        return new ErrorResponse(e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleThrowable(final Throwable e) {
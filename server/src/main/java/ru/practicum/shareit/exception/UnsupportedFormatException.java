@@ -0,0 +1,13 @@
+package ru.practicum.shareit.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import javax.validation.ValidationException;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnsupportedFormatException extends ValidationException {
+    public UnsupportedFormatException(String message) {
+        super(message);
+    }
+}
@@ -3,10 +3,13 @@ package ru.practicum.shareit.item;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
 
     List<Comment> findByItemId(int itemId);
 
+    List<Comment> findByItemIdIn(Collection<Integer> itemIds);
+
 }
@@ -0,0 +1,94 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Search over an in-process {@link ItemSearchIndex}. The index is rebuilt from the repository on
+ * startup and kept current by {@link ItemServiceImpl#addNewItem} and {@link ItemServiceImpl#put};
+ * a query touches the database only to load the items of the requested page.
+ * <p>
+ * Each instance only sees the writes made through it, so this engine suits a single server instance
+ * (and the tests); production runs {@link TrigramItemSearchEngine}, the default. Queries shorter than a
+ * trigram have no postings to intersect and go to the database instead of scanning every document.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory")
+public class InMemoryItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemRepository repository;
+
+    private final ItemSearchIndex index = new ItemSearchIndex();
+
+    @Value("${shareit.search.rebuild-batch-size:1000}")
+    private int rebuildBatchSize = 1000;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        index.clear();
+        Pageable pageable = PageRequest.of(0, rebuildBatchSize, Sort.by("id"));
+        Page<Item> batch;
+        do {
+            batch = repository.findAll(pageable);
+            for (Item item : batch) {
+                index.put(item.getId(), item.getName(), item.getDescription(),
+                        Boolean.TRUE.equals(item.getAvailable()));
+            }
+            pageable = batch.nextPageable();
+        } while (batch.hasNext());
+        log.info("Item search index rebuilt with {} available items", index.size());
+    }
+
+    @Override
+    public void index(Item item) {
+        int id = item.getId();
+        ItemSearchIndex.Document previous =
+                index.put(id, item.getName(), item.getDescription(), Boolean.TRUE.equals(item.getAvailable()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        index.restore(id, previous);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public Page<Item> search(String text, Pageable pageable) {
+        if (text.length() < ItemSearchIndex.GRAM) {
+            return repository.findByNameOrDescriptionContaining(text, pageable);
+        }
+        Page<Integer> ids = index.search(text, pageable);
+        Map<Integer, Item> items = repository.findAllById(ids.getContent()).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<Item> content = ids.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, ids.getTotalElements());
+    }
+}
@@ -13,7 +13,10 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.PathVariable;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,12 +27,20 @@ import java.util.stream.Collectors;
 public class ItemController {
     public final ItemService itemService;
 
+    public final ItemImporter itemImporter;
+
     @PostMapping
     public ItemDto add(@RequestHeader("X-Sharer-User-Id") Integer userId,
                        @RequestBody ItemDto itemDto) {
         return ItemMapper.toItemDto(itemService.addNewItem(userId, ItemMapper.toItem(itemDto)));
     }
 
+    @PostMapping(path = "/import", consumes = "application/x-ndjson")
+    public ItemImportResultDto importItems(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                           InputStream items) throws IOException {
+        return ItemMapper.toItemImportResultDto(itemImporter.importItems(userId, items));
+    }
+
     @GetMapping("/{id}")
     public ItemDto get(@RequestHeader("X-Sharer-User-Id") Integer userId, @PathVariable Integer id) {
         return ItemMapper.toItemDto(itemService.getById(userId, id));
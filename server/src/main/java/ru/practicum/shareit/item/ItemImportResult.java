@@ -0,0 +1,32 @@
+package ru.practicum.shareit.item;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts of an item import. Only the first {@link #MAX_REPORTED_ERRORS} rejected lines are described,
+ * so that a broken file does not grow the result without bound.
+ */
+@Getter
+public class ItemImportResult {
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private int imported;
+
+    private int rejected;
+
+    private final List<String> errors = new ArrayList<>();
+
+    void imported(int count) {
+        imported += count;
+    }
+
+    void rejected(long line, String error) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("Строка " + line + ": " + error);
+        }
+    }
+}
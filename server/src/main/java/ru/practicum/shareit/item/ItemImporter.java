@@ -0,0 +1,99 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemImportDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports items from NDJSON, one {@link ItemImportDto} per line. The input is read line by line and
+ * saved in chunks of {@link #CHUNK_SIZE}, each in its own transaction, so neither the payload nor the
+ * saved items are held in memory. Invalid lines are skipped and reported; chunks saved before a failure
+ * stay saved.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemImporter {
+    public static final int CHUNK_SIZE = 500;
+
+    private final ItemService itemService;
+
+    private final UserRepository userRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final EntityManager entityManager;
+
+    public ItemImportResult importItems(int userId, InputStream lines) throws IOException {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь не найден!");
+        }
+        ItemImportResult result = new ItemImportResult();
+        List<Item> chunk = new ArrayList<>(CHUNK_SIZE);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(lines, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            ItemImportDto itemDto;
+            try {
+                itemDto = objectMapper.readValue(line, ItemImportDto.class);
+            } catch (JsonProcessingException e) {
+                result.rejected(lineNumber, "некорректный JSON");
+                continue;
+            }
+            Set<ConstraintViolation<ItemImportDto>> violations = validator.validate(itemDto);
+            if (!violations.isEmpty()) {
+                result.rejected(lineNumber, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                continue;
+            }
+            chunk.add(ItemMapper.toItem(itemDto));
+            if (chunk.size() == CHUNK_SIZE) {
+                save(userId, chunk, result);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            save(userId, chunk, result);
+        }
+        log.info("Item import for userId={} finished: {} imported, {} rejected",
+                userId, result.getImported(), result.getRejected());
+        return result;
+    }
+
+    private void save(int userId, List<Item> chunk, ItemImportResult result) {
+        itemService.addNewItems(userId, chunk);
+        result.imported(chunk.size());
+        chunk.clear();
+        // the request-scoped persistence context would otherwise keep every imported item
+        entityManager.clear();
+        log.info("Item import for userId={}: {} imported, {} rejected so far",
+                userId, result.getImported(), result.getRejected());
+    }
+}
@@ -3,6 +3,8 @@ package ru.practicum.shareit.item;
 import org.springframework.stereotype.Component;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 
@@ -32,6 +34,23 @@ public class ItemMapper {
         return itemDto;
     }
 
+    public static Item toItem(ItemImportDto itemDto) {
+        Item item = new Item();
+        item.setName(itemDto.getName());
+        item.setAvailable(itemDto.getAvailable());
+        item.setDescription(itemDto.getDescription());
+        item.setRequestId(itemDto.getRequestId());
+        return item;
+    }
+
+    public static ItemImportResultDto toItemImportResultDto(ItemImportResult result) {
+        ItemImportResultDto resultDto = new ItemImportResultDto();
+        resultDto.setImported(result.getImported());
+        resultDto.setRejected(result.getRejected());
+        resultDto.setErrors(result.getErrors());
+        return resultDto;
+    }
+
     public static Item toItem(ItemDto itemDto) {
         Item item = new Item();
         item.setId(itemDto.getId());
@@ -4,8 +4,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,13 +20,36 @@ public interface ItemRepository extends JpaRepository<Item, Integer> {
 
     List<Item> findByDescriptionLikeIgnoreCaseAndAvailableOrderById(String text, Boolean available);
 
+    String SEARCH_MATCH = "i.is_available AND (upper(i.name) LIKE '%' || :text || '%' " +
+            "OR upper(i.description) LIKE '%' || :text || '%')";
+
+    /**
+     * Relevance-ordered search over the pg_trgm GIN indexes (PostgreSQL only, see V3 migration).
+     */
     @Query(
             nativeQuery = true,
-            value = "SELECT * FROM items i WHERE upper(name) ILIKE '%' || ? || '%' and is_available " +
-                    "UNION SELECT * FROM items i WHERE upper(description) ILIKE '%' || ? || '%' and is_available " +
-                    "ORDER BY id"
+            value = "SELECT * FROM items i WHERE " + SEARCH_MATCH +
+                    " ORDER BY CASE WHEN upper(i.name) LIKE '%' || :text || '%' THEN 0 ELSE 1 END, " +
+                    "similarity(upper(i.name), :text) DESC, i.id",
+            countQuery = "SELECT count(*) FROM items i WHERE " + SEARCH_MATCH
+    )
+    Page<Item> findByNameOrDescriptionNative(@Param("text") String text, Pageable pageable);
+
+    /**
+     * Portable substring search ordered by name match, then id; for queries too short for trigrams.
+     */
+    @Query(
+            value = "SELECT i FROM Item i WHERE i.available = true AND (upper(i.name) LIKE concat('%', :text, '%') " +
+                    "OR upper(i.description) LIKE concat('%', :text, '%')) " +
+                    "ORDER BY CASE WHEN upper(i.name) LIKE concat('%', :text, '%') THEN 0 ELSE 1 END, i.id",
+            countQuery = "SELECT count(i) FROM Item i WHERE i.available = true AND " +
+                    "(upper(i.name) LIKE concat('%', :text, '%') OR upper(i.description) LIKE concat('%', :text, '%'))"
     )
-    Page<Item> findByNameOrDescriptionNative(String text, String text1, Pageable pageable);
+    Page<Item> findByNameOrDescriptionContaining(@Param("text") String text, Pageable pageable);
 
     Optional<Item> findByIdAndUserId(int id, int userId);
+
+    boolean existsByUserId(int userId);
+
+    List<Item> findByRequestIdIn(Collection<Integer> requestIds);
 }
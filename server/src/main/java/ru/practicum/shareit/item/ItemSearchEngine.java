@@ -0,0 +1,22 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+
+/**
+ * Full-text lookup of available items by name or description. Results are ordered by relevance:
+ * name matches first, then by trigram similarity of the name to the query, then by id.
+ */
+public interface ItemSearchEngine {
+
+    /**
+     * @param text non-blank, upper-cased query
+     */
+    Page<Item> search(String text, Pageable pageable);
+
+    /**
+     * Called after an item has been saved so that engines keeping their own index can refresh it.
+     */
+    void index(Item item);
+}
@@ -0,0 +1,176 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index of available items: every trigram of the upper-cased name and description maps to a
+ * sorted {@link PostingList} of item ids. Tokens are trigrams rather than words so that a query keeps
+ * the substring semantics of {@code LIKE '%text%'}: the candidates are the intersection of the query
+ * trigram postings, and each candidate is then checked for the actual substring.
+ * <p>
+ * The index answers with a page of ids in the same relevance order as
+ * {@link ItemRepository#findByNameOrDescriptionNative}; loading the items is left to the caller.
+ */
+public class ItemSearchIndex {
+
+    public static final int GRAM = 3;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    private final Map<Integer, Document> documents = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the current state of an item and returns the previously indexed one, so that the change
+     * can be reverted with {@link #restore}. Unavailable items are removed from the index.
+     */
+    public Document put(int id, String name, String description, boolean available) {
+        return restore(id, available ? new Document(id, name, description) : null);
+    }
+
+    /**
+     * Replaces the indexed document of an item with the given one, or removes the item when it is null.
+     */
+    public Document restore(int id, Document document) {
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.remove(id);
+            if (previous != null) {
+                for (String gram : grams(previous.text)) {
+                    PostingList posting = postings.get(gram);
+                    posting.remove(id);
+                    if (posting.size() == 0) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+            if (document != null) {
+                documents.put(id, document);
+                for (String gram : grams(document.text)) {
+                    postings.computeIfAbsent(gram, x -> new PostingList()).add(id);
+                }
+            }
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param text upper-cased query of at least {@link #GRAM} characters; shorter queries have no trigram
+     *             to look up and must be answered by the database instead
+     */
+    public Page<Integer> search(String text, Pageable pageable) {
+        if (text.length() < GRAM) {
+            throw new IllegalArgumentException("Query is shorter than " + GRAM + " characters: " + text);
+        }
+        Set<String> queryGrams = grams(text);
+        List<Document> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int id : candidates(queryGrams)) {
+                Document document = documents.get(id);
+                if (document.contains(text)) {
+                    matches.add(document);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<Document, Double> similarity = new HashMap<>();
+        for (Document document : matches) {
+            similarity.put(document, document.similarity(queryGrams));
+        }
+        matches.sort(Comparator.comparing((Document document) -> !document.name.contains(text))
+                .thenComparing(similarity::get, Comparator.reverseOrder())
+                .thenComparingInt(document -> document.id));
+        List<Integer> ids = new ArrayList<>();
+        long end = Math.min(matches.size(), pageable.getOffset() + pageable.getPageSize());
+        for (long i = pageable.getOffset(); i < end; i++) {
+            ids.add(matches.get((int) i).id);
+        }
+        return new PageImpl<>(ids, pageable, matches.size());
+    }
+
+    private int[] candidates(Set<String> queryGrams) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String gram : queryGrams) {
+            PostingList posting = postings.get(gram);
+            if (posting == null) {
+                return new int[0];
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        int[] candidates = lists.get(0).toArray();
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = lists.get(i).retainAll(candidates, count);
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * Indexed state of one available item.
+     */
+    public static final class Document {
+        private final int id;
+        private final String name;
+        private final String text;
+        private final int nameGrams;
+
+        private Document(int id, String name, String description) {
+            this.id = id;
+            this.name = name == null ? "" : name.toUpperCase();
+            this.nameGrams = grams(this.name).size();
+            // the separator keeps a match from spanning name and description
+            this.text = this.name + "\n" + (description == null ? "" : description.toUpperCase());
+        }
+
+        private boolean contains(String query) {
+            return text.contains(query);
+        }
+
+        private double similarity(Set<String> queryGrams) {
+            if (nameGrams == 0 || queryGrams.isEmpty()) {
+                return 0;
+            }
+            long shared = queryGrams.stream().filter(name::contains).count();
+            return (double) shared / (nameGrams + queryGrams.size() - shared);
+        }
+    }
+}
@@ -4,9 +4,13 @@ import org.springframework.data.domain.Page;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.List;
+
 public interface ItemService {
     Item addNewItem(int userId, Item item);
 
+    List<Item> addNewItems(int userId, List<Item> items);
+
     Item getById(int userId, int id);
 
     Page<Item> getAll(int userId, int from, int size);
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -7,14 +8,15 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
-import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.ItemBookingProjection;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.UserNotBookedItemException;
 import ru.practicum.shareit.exception.WrongOwnerException;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.metrics.MetricsConfig;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
@@ -25,6 +27,7 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @Transactional
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
@@ -39,6 +42,10 @@ public class ItemServiceImpl implements ItemService {
 
     private final ItemRequestRepository itemRequestRepository;
 
+    private final ItemSearchEngine searchEngine;
+
+    private final ItemBookingProjection bookingProjection;
+
     @Transactional
     @Override
     public Item addNewItem(int userId, Item item) {
@@ -46,13 +53,29 @@ public class ItemServiceImpl implements ItemService {
         if (user.isPresent()) {
             item.setOwner(user.get());
             item.setUserId(userId);
-            return repository.save(item);
+            Item savedItem = repository.save(item);
+            searchEngine.index(savedItem);
+            return savedItem;
         }
         Optional<ItemRequest> itemRequest = itemRequestRepository.findById(item.getRequestId());
         itemRequest.ifPresent(item::setRequest);
         return null;
     }
 
+    @Transactional
+    @Override
+    public List<Item> addNewItems(int userId, List<Item> items) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден!"));
+        for (Item item : items) {
+            item.setOwner(user);
+            item.setUserId(userId);
+        }
+        List<Item> savedItems = repository.saveAllAndFlush(items);
+        savedItems.forEach(searchEngine::index);
+        return savedItems;
+    }
+
     @Transactional(readOnly = true)
     @Override
     public Item getById(int userId, int id) {
@@ -62,8 +85,7 @@ public class ItemServiceImpl implements ItemService {
             if (item.getUserId() == userId) {
                 setBookingDatesForOne(item);
             }
-            Map<Integer, User> users = getAllUsers();
-            setCommentsForOne(item, users);
+            setCommentsForOne(item);
             return item;
         } else {
             throw new NotFoundException("Вещь не найдена!");
@@ -113,9 +135,10 @@ public class ItemServiceImpl implements ItemService {
             throw new NotFoundException("Вещь не найдена!");
         }
         setBookingDatesForOne(item);
-        Map<Integer, User> users = getAllUsers();
-        setCommentsForOne(item, users);
-        return repository.save(item);
+        setCommentsForOne(item);
+        Item savedItem = repository.save(item);
+        searchEngine.index(savedItem);
+        return savedItem;
     }
 
     @Transactional(readOnly = true)
@@ -125,7 +148,7 @@ public class ItemServiceImpl implements ItemService {
             return new PageImpl<>(new ArrayList<>());
         }
         text = text.toUpperCase();
-        Page<Item> items = repository.findByNameOrDescriptionNative(text, text, PageRequest.of(from / size, size));
+        Page<Item> items = searchEngine.search(text, PageRequest.of(from / size, size));
         fillCommentsAndBookingsInItems(userId, items);
         return items;
     }
@@ -162,47 +185,30 @@ public class ItemServiceImpl implements ItemService {
     }
 
     private void fillCommentsAndBookingsInItems(int userId, Page<Item> items) {
-        List<Comment> comments = getAllComments();
-        List<Booking> bookings = getAllBookings();
-        Map<Integer, User> users = getAllUsers();
+        if (items.isEmpty()) {
+            return;
+        }
+        Set<Integer> itemIds = items.stream().map(Item::getId).collect(Collectors.toSet());
+        Map<Integer, List<Comment>> comments = getCommentsOfItems(itemIds);
+        Map<Integer, User> users = getAuthorsOfComments(comments.values()
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList()));
         for (Item item : items) {
             if (item.getUserId() == userId) {
-                setBookingDatesForAll(item, bookings);
+                setBookingDatesForOne(item);
             }
             setCommentsForAll(item, users, comments);
         }
     }
 
-    private void setBookingDatesForAll(Item item, List<Booking> allBookings) {
-        List<Booking> lastBookings = allBookings.stream()
-                        .filter(x -> x.getItemId() == item.getId())
-                        .filter(x -> x.getStart().isBefore(LocalDateTime.now()))
-                        .collect(Collectors.toList());
-        if (!lastBookings.isEmpty()) {
-            item.setLastBooking(BookingMapper.toBookingInItem(lastBookings.get(0)));
-        }
-        List<Booking> nextBookings = allBookings.stream()
-                .filter(x -> x.getItemId() == item.getId())
-                .filter(x -> x.getStart().isAfter(LocalDateTime.now()))
-                .collect(Collectors.toList());
-        if (!nextBookings.isEmpty()) {
-            item.setNextBooking(BookingMapper.toBookingInItem(nextBookings.get(nextBookings.size() - 1)));
-        }
-    }
-
     private void setBookingDatesForOne(Item item) {
-        Booking lastBooking = bookingRepository.findFirstByItemIdAndStartBeforeOrderByStartDesc(item.getId(), LocalDateTime.now());
-        if (lastBooking != null) {
-            item.setLastBooking(BookingMapper.toBookingInItem(lastBooking));
-        }
-        Booking nextBooking = bookingRepository.findFirstByItemIdAndStartAfterOrderByStartAsc(item.getId(), LocalDateTime.now());
-        if (nextBooking != null) {
-            item.setNextBooking(BookingMapper.toBookingInItem(nextBooking));
-        }
+        item.setLastBooking(bookingProjection.getLastBooking(item.getId()));
+        item.setNextBooking(bookingProjection.getNextBooking(item.getId()));
     }
 
-    private void setCommentsForAll(Item item, Map<Integer, User> users, List<Comment> allComments) {
-        List<Comment> comments = allComments.stream().filter(x -> x.getItemId() == item.getId()).collect(Collectors.toList());
+    private void setCommentsForAll(Item item, Map<Integer, User> users, Map<Integer, List<Comment>> allComments) {
+        List<Comment> comments = allComments.getOrDefault(item.getId(), new ArrayList<>());
         for (Comment comment : comments) {
             if (users.containsKey(comment.getAuthorId())) {
                 comment.setAuthorName(users.get(comment.getAuthorId()).getName());
@@ -211,8 +217,9 @@ public class ItemServiceImpl implements ItemService {
         item.setComments(comments);
     }
 
-    private void setCommentsForOne(Item item, Map<Integer, User> users) {
+    private void setCommentsForOne(Item item) {
         List<Comment> comments = commentRepository.findByItemId(item.getId());
+        Map<Integer, User> users = getAuthorsOfComments(comments);
         for (Comment comment : comments) {
             if (users.containsKey(comment.getAuthorId())) {
                 comment.setAuthorName(users.get(comment.getAuthorId()).getName());
@@ -221,17 +228,19 @@ public class ItemServiceImpl implements ItemService {
         item.setComments(comments);
     }
 
-    private List<Comment> getAllComments() {
-        return commentRepository.findAll();
+    private Map<Integer, List<Comment>> getCommentsOfItems(Set<Integer> itemIds) {
+        return commentRepository.findByItemIdIn(itemIds)
+                .stream()
+                .collect(Collectors.groupingBy(Comment::getItemId));
     }
 
-    private List<Booking> getAllBookings() {
-        return bookingRepository.findAllByStatusOrderByStartDesc(BookingStatus.APPROVED);
-    }
-
-    private Map<Integer, User> getAllUsers() {
+    private Map<Integer, User> getAuthorsOfComments(List<Comment> comments) {
         Map<Integer, User> foundUsers = new HashMap<>();
-        for (User u : userRepository.findAll()) {
+        Set<Integer> authorIds = comments.stream().map(Comment::getAuthorId).collect(Collectors.toSet());
+        if (authorIds.isEmpty()) {
+            return foundUsers;
+        }
+        for (User u : userRepository.findAllById(authorIds)) {
             foundUsers.put(u.getId(), u);
         }
         return foundUsers;
@@ -0,0 +1,78 @@
+package ru.practicum.shareit.item;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, duplicate-free list of item ids backed by a primitive array. Ids are assigned in increasing
+ * order, so adding a new item is an append; updates of older items fall back to a binary search insert.
+ */
+final class PostingList {
+
+    private int[] ids = new int[4];
+
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void add(int id) {
+        if (size == 0 || ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return;
+        }
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        ensureCapacity();
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+    }
+
+    void remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Keeps in {@code candidates[0..count)} only the ids present in this list and returns the new count.
+     * Both sides are sorted, so each lookup gallops forward from the previous match.
+     */
+    int retainAll(int[] candidates, int count) {
+        int kept = 0;
+        int low = 0;
+        for (int i = 0; i < count && low < size; i++) {
+            int id = candidates[i];
+            int bound = 1;
+            while (low + bound < size && ids[low + bound] < id) {
+                bound <<= 1;
+            }
+            int position = Arrays.binarySearch(ids, low + (bound >> 1), Math.min(low + bound + 1, size), id);
+            if (position >= 0) {
+                candidates[kept++] = id;
+                low = position + 1;
+            } else {
+                low = -position - 1;
+            }
+        }
+        return kept;
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+
+/**
+ * Database-side search backed by the pg_trgm GIN indexes on upper(name) and upper(description).
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "trigram", matchIfMissing = true)
+public class TrigramItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemRepository repository;
+
+    @Override
+    public Page<Item> search(String text, Pageable pageable) {
+        return repository.findByNameOrDescriptionNative(text, pageable);
+    }
+
+    @Override
+    public void index(Item item) {
+        // the GIN indexes are maintained by PostgreSQL
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+/**
+ * One line of an item import. Imported lines are not checked by the gateway, so they carry
+ * the same rules as the gateway's {@code ItemDto}.
+ */
+@Data
+public class ItemImportDto {
+    @NotBlank(message = "Наименование не может быть пустым")
+    private String name;
+    @NotBlank(message = "Описание не может быть пустым")
+    private String description;
+    @NotNull(message = "Статус доступности должен быть указан")
+    private Boolean available;
+    private int requestId;
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ItemImportResultDto {
+    private int imported;
+    private int rejected;
+    private List<String> errors;
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Records how many rows every unpaged {@code findAll()} returns as {@code shareit.repository.rows},
+ * so full-table loads show up before they dominate latency.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryRowsAspect {
+
+    public static final String ROWS_SUMMARY = "shareit.repository.rows";
+
+    private final MeterRegistry meterRegistry;
+
+    @AfterReturning(pointcut = "execution(* org.springframework.data.repository.CrudRepository+.findAll())",
+            returning = "rows")
+    public void recordRows(JoinPoint joinPoint, Object rows) {
+        if (!(rows instanceof Collection)) {
+            return;
+        }
+        DistributionSummary.builder(ROWS_SUMMARY)
+                .description("Rows returned by unpaged repository loads")
+                .tag("repository", repositoryName(joinPoint.getThis()))
+                .tag("method", joinPoint.getSignature().getName())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(((Collection<?>) rows).size());
+    }
+
+    private static String repositoryName(Object repository) {
+        return Arrays.stream(AopProxyUtils.proxiedUserInterfaces(repository))
+                .filter(Repository.class::isAssignableFrom)
+                .findFirst()
+                .map(Class::getSimpleName)
+                .orElse("unknown");
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -9,16 +10,20 @@ import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.dto.ItemInItemRequest;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.metrics.MetricsConfig;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @Transactional
 @RequiredArgsConstructor
 public class ItemRequestServiceImpl implements ItemRequestService {
@@ -49,11 +54,8 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         if (foundUser.isEmpty()) {
             throw new NotFoundException("Пользователь не найден!");
         }
-        List<Item> allItems = getAllItems();
         List<ItemRequest> itemRequests = repository.findAllByRequestorIdOrderByCreated(userId);
-        for (ItemRequest itemRequest : itemRequests) {
-            fillInItemInformation(itemRequest, allItems);
-        }
+        fillInItemInformation(itemRequests);
         return itemRequests;
     }
 
@@ -67,8 +69,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         Optional<ItemRequest> foundItemRequest = repository.findById(id);
         if (foundItemRequest.isPresent()) {
             ItemRequest itemRequest = foundItemRequest.get();
-            List<Item> allItems = getAllItems();
-            fillInItemInformation(itemRequest, allItems);
+            fillInItemInformation(List.of(itemRequest));
             return itemRequest;
         } else {
             throw new NotFoundException("Запрос не найден!");
@@ -81,26 +82,30 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         if (foundUser.isEmpty()) {
             throw new NotFoundException("Пользователь не найден!");
         }
-        List<Item> allItems = getAllItems();
         Page<ItemRequest> itemRequests = repository.findAllByRequestorIdNotOrderByCreated(userId,
                 PageRequest.of(from / size, size));
-        for (ItemRequest itemRequest : itemRequests) {
-            fillInItemInformation(itemRequest, allItems);
-        }
+        fillInItemInformation(itemRequests.getContent());
         return itemRequests;
     }
 
-    private List<Item> getAllItems() {
-        return itemRepository.findAll();
-    }
-
-    private void fillInItemInformation(ItemRequest itemRequest, List<Item> allItems) {
-        if (allItems == null || allItems.isEmpty()) {
+    /**
+     * Attaches the answering items to the given requests with one indexed query, so the cost follows
+     * the page size and not the size of the items table.
+     */
+    private void fillInItemInformation(List<ItemRequest> itemRequests) {
+        if (itemRequests.isEmpty()) {
             return;
         }
-        List<Item> items = allItems.stream()
-                .filter(x -> x.getRequestId() == itemRequest.getId())
-                .collect(Collectors.toList());
+        Set<Integer> requestIds = itemRequests.stream().map(ItemRequest::getId).collect(Collectors.toSet());
+        Map<Integer, List<Item>> itemsByRequest = itemRepository.findByRequestIdIn(requestIds)
+                .stream()
+                .collect(Collectors.groupingBy(Item::getRequestId));
+        for (ItemRequest itemRequest : itemRequests) {
+            fillInItemInformation(itemRequest, itemsByRequest.getOrDefault(itemRequest.getId(), List.of()));
+        }
+    }
+
+    private void fillInItemInformation(ItemRequest itemRequest, List<Item> items) {
         List<ItemInItemRequest> shortItems = new ArrayList<>();
         for (Item item : items) {
             ItemInItemRequest shortItem = new ItemInItemRequest();
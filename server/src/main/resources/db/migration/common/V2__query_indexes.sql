@@ -0,0 +1,10 @@
+CREATE INDEX idx_bookings_booker_end ON bookings (booker_id, end_date, id);
+CREATE INDEX idx_bookings_item_end ON bookings (item_id, end_date, id);
+CREATE INDEX idx_bookings_item_start ON bookings (item_id, start_date);
+CREATE INDEX idx_bookings_item_booker_end ON bookings (item_id, booker_id, end_date);
+CREATE INDEX idx_bookings_status_end ON bookings (status, end_date);
+CREATE INDEX idx_items_owner ON items (owner_id, id);
+CREATE INDEX idx_items_request ON items (request_id);
+CREATE INDEX idx_comments_item ON comments (item_id);
+CREATE INDEX idx_requests_requestor_created ON requests (requestor_id, created);
+CREATE INDEX idx_requests_created ON requests (created);
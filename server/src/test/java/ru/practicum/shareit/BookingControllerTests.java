@@ -8,11 +8,22 @@ import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.shareit.booking.*;
+import ru.practicum.shareit.booking.dto.BookingApprovalDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInItem;
 import ru.practicum.shareit.exception.*;
@@ -26,14 +37,24 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
+@Import(BookingFieldsConfig.class)
 public class BookingControllerTests {
 
     @Autowired
@@ -48,6 +69,9 @@ public class BookingControllerTests {
     @MockBean
     BookingRepository bookingRepository;
 
+    @MockBean
+    BookingExporter bookingExporter;
+
     private Booking booking;
 
     private BookingDto bookingDto;
@@ -65,6 +89,8 @@ public class BookingControllerTests {
     @Mock
     ItemRepository itemRepo;
 
+    BookingIntervalIndex intervalIndex;
+
     BookingServiceImpl bookingService;
 
     @BeforeEach
@@ -79,7 +105,9 @@ public class BookingControllerTests {
         booking.setBooker(user);
         booking.setStatus(BookingStatus.WAITING);
 
-        bookingService = new BookingServiceImpl(repository, userRepo, itemRepo);
+        intervalIndex = new BookingIntervalIndex(repository);
+        bookingService = new BookingServiceImpl(repository, userRepo, itemRepo, intervalIndex,
+                new ItemBookingProjection(repository));
 
         bookingDto = new BookingDto();
         bookingDto.setId(1);
@@ -167,6 +195,81 @@ public class BookingControllerTests {
                 .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(1)));
     }
 
+    @Test
+    void getBookingsByUserEmbedsOnlyItemAndBookerNames() throws Exception {
+        item.setId(1);
+        item.setName("Дрель");
+        item.setDescription("Простая дрель");
+        user = new User();
+        user.setId(2);
+        user.setName("Иван");
+        user.setEmail("ivan@mail.ru");
+        booking.setItem(item);
+        booking.setBooker(user);
+        when(bookingServiceMock.getByUserId(anyInt(), anyString(), anyInt(), anyInt()))
+                .thenReturn(new PageImpl<>(List.of(booking)));
+
+        mockMvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 2)
+                        .param("state", "ALL"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].item.name").value("Дрель"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].item.description").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].booker.name").value("Иван"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].booker.email").doesNotExist());
+    }
+
+    @Test
+    void getBookingsByOwnerWritesOnlyRequestedFields() throws Exception {
+        booking.setItem(item);
+        when(bookingServiceMock.getByOwnerId(anyInt(), anyString(), anyInt(), anyInt()))
+                .thenReturn(new PageImpl<>(List.of(booking)));
+
+        mockMvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("state", "ALL")
+                        .param("fields", "id,status,unknown"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(booking.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value(BookingStatus.WAITING.name()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].item").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].start").doesNotExist());
+    }
+
+    @Test
+    void exportByOwnerStreamsRequestedFormat() throws Exception {
+        MvcResult result = mockMvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"));
+        verify(bookingExporter).checkOwner(1);
+        verify(bookingExporter).export(eq(1), eq(BookingExportFormat.CSV), any());
+    }
+
+    @Test
+    void exportByOwnerWithUnknownFormatTest() throws Exception {
+        mockMvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        verify(bookingExporter, never()).checkOwner(anyInt());
+    }
+
+    @Test
+    void exportByOwnerWithoutItemsIsNotStarted() throws Exception {
+        doThrow(new NotFoundException("У пользователь не найдено вещей")).when(bookingExporter).checkOwner(1);
+
+        mockMvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isNotFound());
+        verify(bookingExporter, never()).export(anyInt(), any(), any());
+    }
+
     @Test
     void getBookingsByUserWithoutFirstPaginationParamTest() throws Exception {
         when(bookingServiceMock.getByUserId(anyInt(), anyString(), anyInt(), anyInt()))
@@ -244,6 +347,94 @@ public class BookingControllerTests {
                 .andExpect(status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(1)));
     }
+    @Test
+    void getAvailabilityTest() throws Exception {
+        when(bookingServiceMock.isAvailable(anyInt(), any(), any()))
+                .thenReturn(true);
+
+        mockMvc.perform(get("/bookings/availability")
+                        .param("itemId", "1")
+                        .param("start", "2030-01-01T10:00:00")
+                        .param("end", "2030-01-02T10:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.['itemId']").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.['available']").value(true));
+    }
+    @Test
+    void getBookingsByOwnerAfterCursorTest() throws Exception {
+        booking.setEnd(LocalDateTime.of(2030, 1, 1, 10, 0, 0));
+        when(bookingServiceMock.getByOwnerIdAfter(anyInt(), anyString(), anyString(), anyInt()))
+                .thenReturn(new SliceImpl<>(List.of(booking), PageRequest.of(0, 1), true));
+
+        mockMvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("state", "ALL")
+                        .param("after", "")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "2030-01-01T10:00,1"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void getBookingsByUserAfterCursorLastPageTest() throws Exception {
+        when(bookingServiceMock.getByUserIdAfter(anyInt(), anyString(), anyString(), anyInt()))
+                .thenReturn(new SliceImpl<>(List.of(booking), PageRequest.of(0, 2), false));
+
+        mockMvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("state", "ALL")
+                        .param("after", "2030-01-01T10:00,5")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void createBookingBatchTest() throws Exception {
+        when(bookingServiceMock.addNewBookings(anyInt(), anyList()))
+                .thenReturn(List.of(BookingBatchResult.saved(booking),
+                        BookingBatchResult.failed(new ItemNotAvailableException("Вещь недоступна для бронирования!"))));
+        mockMvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .content(objectMapper.writeValueAsString(List.of(bookingDto, bookingDto)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].booking.id").value(booking.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value(400))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].error").value("Вещь недоступна для бронирования!"));
+    }
+
+    @Test
+    void updateBookingBatchTest() throws Exception {
+        BookingApprovalDto approvalDto = new BookingApprovalDto();
+        approvalDto.setBookingId(1);
+        approvalDto.setApproved(true);
+        when(bookingServiceMock.putAll(anyInt(), anyList()))
+                .thenReturn(List.of(
+                        BookingBatchResult.failed(new WrongOwnerException("Пользователь не является владельцем вещи"))));
+        mockMvc.perform(patch("/bookings/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .content(objectMapper.writeValueAsString(List.of(approvalDto)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value(404))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].booking").doesNotExist());
+    }
+
+    @Test
+    void errorHandlerStatusFollowsHandlers() {
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, ErrorHandler.statusOf(new WrongOwnerException("")));
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, ErrorHandler.statusOf(new BookingCursorException("")));
+        Assertions.assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, ErrorHandler.statusOf(new IllegalStateException()));
+    }
     //-- Тесты контроллера
 
     //++ Unit-тесты сервиса
@@ -255,8 +446,6 @@ public class BookingControllerTests {
                 .thenReturn(Optional.ofNullable(user));
         when(itemRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(item));
-        when(repository.findByItemIdIsAndStartAfterAndEndBeforeAndStatus(anyInt(), any(), any(), any()))
-                .thenReturn(new ArrayList<>());
 
         Assertions.assertEquals(bookingService.addNewBooking(1, booking), booking);
     }
@@ -327,8 +516,12 @@ public class BookingControllerTests {
                 .thenReturn(Optional.ofNullable(user));
         when(itemRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(item));
-        when(repository.findByItemIdIsAndStartAfterAndEndBeforeAndStatus(anyInt(), any(), any(), any()))
-                .thenReturn(List.of(booking));
+        Booking approvedBooking = new Booking();
+        approvedBooking.setItemId(booking.getItemId());
+        approvedBooking.setStart(booking.getStart().minusMinutes(5));
+        approvedBooking.setEnd(booking.getEnd().minusMinutes(5));
+        approvedBooking.setStatus(BookingStatus.APPROVED);
+        intervalIndex.add(approvedBooking);
 
         try {
             bookingService.addNewBooking(1, booking);
@@ -348,8 +541,6 @@ public class BookingControllerTests {
                 .thenReturn(Optional.ofNullable(user));
         when(itemRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(item));
-        when(repository.findByItemIdIsAndStartAfterAndEndBeforeAndStatus(anyInt(), any(), any(), any()))
-                .thenReturn(new ArrayList<>());
 
         try {
             bookingService.addNewBooking(1, booking);
@@ -369,8 +560,6 @@ public class BookingControllerTests {
                 .thenReturn(Optional.ofNullable(user));
         when(itemRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(item));
-        when(repository.findByItemIdIsAndStartAfterAndEndBeforeAndStatus(anyInt(), any(), any(), any()))
-                .thenReturn(new ArrayList<>());
 
         try {
             bookingService.addNewBooking(1, booking);
@@ -381,6 +570,9 @@ public class BookingControllerTests {
 
     @Test
     public void updateBookingIsApprovedSuccessful() {
+        item.setUserId(1);
+        booking.setItem(item);
+        booking.setBooker(user);
         Booking bookingUpd = new Booking();
         bookingUpd.setId(1);
         bookingUpd.setStart(LocalDateTime.now().plusMinutes(10));
@@ -395,9 +587,7 @@ public class BookingControllerTests {
                 .thenReturn(bookingUpd);
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(itemRepo.findByIdAndUserId(anyInt(), anyInt()))
-                .thenReturn(Optional.ofNullable(item));
-        when(repository.findById(anyInt()))
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.ofNullable(booking));
 
         Assertions.assertEquals(bookingService.put(1, 1, true), bookingUpd);
@@ -406,6 +596,9 @@ public class BookingControllerTests {
 
     @Test
     public void updateBookingNotApprovedSuccessful() {
+        item.setUserId(1);
+        booking.setItem(item);
+        booking.setBooker(user);
         Booking bookingUpd = new Booking();
         bookingUpd.setId(1);
         bookingUpd.setStart(LocalDateTime.now().plusMinutes(10));
@@ -420,15 +613,150 @@ public class BookingControllerTests {
                 .thenReturn(bookingUpd);
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(itemRepo.findByIdAndUserId(anyInt(), anyInt()))
-                .thenReturn(Optional.ofNullable(item));
-        when(repository.findById(anyInt()))
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.ofNullable(booking));
 
         Assertions.assertEquals(bookingService.put(1, 1, false), bookingUpd);
         Assertions.assertEquals(booking.getStatus(), bookingUpd.getStatus());
     }
 
+    @Test
+    public void updateBookingApproveOverlappingThrowsException() {
+        item.setUserId(1);
+        booking.setItem(item);
+        booking.setBooker(user);
+        Booking approvedBooking = new Booking();
+        approvedBooking.setItemId(booking.getItemId());
+        approvedBooking.setStart(booking.getStart().plusMinutes(5));
+        approvedBooking.setEnd(booking.getEnd().plusMinutes(5));
+        approvedBooking.setStatus(BookingStatus.APPROVED);
+        intervalIndex.add(approvedBooking);
+
+        when(userRepo.findById(anyInt()))
+                .thenReturn(Optional.ofNullable(user));
+        when(repository.findWithItemAndBookerById(anyInt()))
+                .thenReturn(Optional.ofNullable(booking));
+
+        Assertions.assertThrows(ItemNotAvailableException.class, () -> bookingService.put(1, 1, true));
+        Assertions.assertEquals(BookingStatus.WAITING, booking.getStatus());
+    }
+
+    @Test
+    public void intervalIndexDetectsOverlaps() {
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+        for (int[] interval : new int[][]{{10, 20}, {30, 40}, {35, 50}, {50, 55}}) {
+            Booking approvedBooking = new Booking();
+            approvedBooking.setItemId(1);
+            approvedBooking.setStart(base.plusHours(interval[0]));
+            approvedBooking.setEnd(base.plusHours(interval[1]));
+            approvedBooking.setStatus(BookingStatus.APPROVED);
+            intervalIndex.add(approvedBooking);
+        }
+        Booking waitingBooking = new Booking();
+        waitingBooking.setItemId(1);
+        waitingBooking.setStart(base.plusHours(60));
+        waitingBooking.setEnd(base.plusHours(70));
+        waitingBooking.setStatus(BookingStatus.WAITING);
+        intervalIndex.add(waitingBooking);
+
+        Assertions.assertFalse(intervalIndex.overlaps(1, base, base.plusHours(10)));
+        Assertions.assertTrue(intervalIndex.overlaps(1, base.plusHours(5), base.plusHours(11)));
+        Assertions.assertTrue(intervalIndex.overlaps(1, base.plusHours(12), base.plusHours(13)));
+        Assertions.assertFalse(intervalIndex.overlaps(1, base.plusHours(20), base.plusHours(30)));
+        Assertions.assertTrue(intervalIndex.overlaps(1, base.plusHours(45), base.plusHours(46)));
+        Assertions.assertTrue(intervalIndex.overlaps(1, base.plusHours(54), base.plusHours(58)));
+        Assertions.assertFalse(intervalIndex.overlaps(1, base.plusHours(55), base.plusHours(80)));
+        Assertions.assertFalse(intervalIndex.overlaps(2, base, base.plusHours(100)));
+    }
+
+    @Test
+    public void intervalIndexReleasesReservationOnRollback() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Assertions.assertTrue(intervalIndex.reserve(1, start, start.plusHours(1)));
+            Assertions.assertFalse(intervalIndex.reserve(1, start, start.plusHours(1)));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(x -> x.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assertions.assertFalse(intervalIndex.overlaps(1, start, start.plusHours(1)));
+    }
+
+    @Test
+    public void intervalIndexGrantsConcurrentReservationsOnce() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> reservations = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                LocalDateTime shifted = start.plusMinutes(i % 30);
+                reservations.add(executor.submit(() -> intervalIndex.reserve(1, shifted, shifted.plusHours(1))));
+            }
+            int granted = 0;
+            for (Future<Boolean> reservation : reservations) {
+                granted += reservation.get() ? 1 : 0;
+            }
+            Assertions.assertEquals(1, granted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void intervalIndexPrunesEndedIntervals() {
+        Booking endedBooking = new Booking();
+        endedBooking.setItemId(1);
+        endedBooking.setStart(LocalDateTime.now().minusDays(2));
+        endedBooking.setEnd(LocalDateTime.now().minusDays(1));
+        endedBooking.setStatus(BookingStatus.APPROVED);
+        intervalIndex.add(endedBooking);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        intervalIndex.reserve(1, start, start.plusHours(1));
+
+        intervalIndex.prune();
+
+        Assertions.assertFalse(intervalIndex.overlaps(1, endedBooking.getStart(), endedBooking.getEnd()));
+        Assertions.assertTrue(intervalIndex.overlaps(1, start, start.plusHours(1)));
+    }
+
+    @Test
+    public void intervalIndexWarmUpLoadsApprovedBookings() {
+        Booking approvedBooking = new Booking();
+        approvedBooking.setItemId(1);
+        approvedBooking.setStart(LocalDateTime.now().plusDays(1));
+        approvedBooking.setEnd(LocalDateTime.now().plusDays(2));
+        approvedBooking.setStatus(BookingStatus.APPROVED);
+
+        when(repository.findByStatusAndEndAfter(any(), any()))
+                .thenReturn(List.of(approvedBooking));
+
+        intervalIndex.warmUp();
+
+        Assertions.assertTrue(intervalIndex.overlaps(1, approvedBooking.getStart(), approvedBooking.getEnd()));
+    }
+
+    @Test
+    public void isAvailableTest() {
+        Booking approvedBooking = new Booking();
+        approvedBooking.setItemId(1);
+        approvedBooking.setStart(LocalDateTime.now().plusDays(1));
+        approvedBooking.setEnd(LocalDateTime.now().plusDays(2));
+        approvedBooking.setStatus(BookingStatus.APPROVED);
+        intervalIndex.add(approvedBooking);
+
+        when(itemRepo.findById(anyInt()))
+                .thenReturn(Optional.ofNullable(item));
+
+        Assertions.assertFalse(bookingService.isAvailable(1, approvedBooking.getStart(), approvedBooking.getEnd()));
+        Assertions.assertTrue(bookingService.isAvailable(1, approvedBooking.getEnd(),
+                approvedBooking.getEnd().plusDays(1)));
+        Assertions.assertThrows(BookingDateException.class, () -> bookingService.isAvailable(1,
+                approvedBooking.getEnd(), approvedBooking.getStart()));
+    }
+
     @Test
     public void updateBookingUserNotFoundThrowsException() {
         when(userRepo.findById(anyInt()))
@@ -445,7 +773,7 @@ public class BookingControllerTests {
     public void updateBookingNotFoundThrowsException() {
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(repository.findById(anyInt()))
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.empty());
 
         try {
@@ -461,7 +789,7 @@ public class BookingControllerTests {
 
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(repository.findById(anyInt()))
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.ofNullable(booking));
 
         try {
@@ -473,6 +801,8 @@ public class BookingControllerTests {
 
     @Test
     public void updateBookingUserNotOwnerAndNotBookerThrowsException() {
+        item.setUserId(42);
+        booking.setItem(item);
         Booking bookingUpd = new Booking();
         bookingUpd.setId(1);
         bookingUpd.setStart(LocalDateTime.now().plusMinutes(10));
@@ -488,11 +818,7 @@ public class BookingControllerTests {
                 .thenReturn(bookingUpd);
         when(userRepo.findById(1))
                 .thenReturn(Optional.ofNullable(user));
-        when(userRepo.findById(42))
-                .thenReturn(Optional.empty());
-        when(itemRepo.findByIdAndUserId(anyInt(), anyInt()))
-                .thenReturn(Optional.empty());
-        when(repository.findById(anyInt()))
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.ofNullable(booking));
 
         try {
@@ -504,6 +830,8 @@ public class BookingControllerTests {
 
     @Test
     public void updateBookingUserNotOwnerThrowsException() {
+        item.setUserId(42);
+        booking.setItem(item);
         Booking bookingUpd = new Booking();
         bookingUpd.setId(1);
         bookingUpd.setStart(LocalDateTime.now().plusMinutes(10));
@@ -518,9 +846,7 @@ public class BookingControllerTests {
                 .thenReturn(bookingUpd);
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(itemRepo.findByIdAndUserId(anyInt(), anyInt()))
-                .thenReturn(Optional.empty());
-        when(repository.findById(anyInt()))
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.ofNullable(booking));
 
         try {
@@ -532,6 +858,8 @@ public class BookingControllerTests {
 
     @Test
     public void updateBookingUserNotBookerThrowsException() {
+        item.setUserId(1);
+        booking.setItem(item);
         Booking bookingUpd = new Booking();
         bookingUpd.setId(1);
         bookingUpd.setStart(LocalDateTime.now().plusMinutes(10));
@@ -547,11 +875,7 @@ public class BookingControllerTests {
                 .thenReturn(bookingUpd);
         when(userRepo.findById(1))
                 .thenReturn(Optional.ofNullable(user));
-        when(userRepo.findById(42))
-                .thenReturn(Optional.empty());
-        when(itemRepo.findByIdAndUserId(anyInt(), anyInt()))
-                .thenReturn(Optional.ofNullable(item));
-        when(repository.findById(anyInt()))
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.ofNullable(booking));
 
         try {
@@ -563,14 +887,12 @@ public class BookingControllerTests {
 
     @Test
     public void getBookingByIdSuccessful() {
+        booking.setItem(item);
+        booking.setBooker(user);
         item.setUserId(1);
         booking.setUserId(1);
 
-        when(userRepo.findById(anyInt()))
-                .thenReturn(Optional.ofNullable(user));
-        when(itemRepo.findById(anyInt()))
-                .thenReturn(Optional.ofNullable(item));
-        when(repository.findById(anyInt()))
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.ofNullable(booking));
 
         Assertions.assertEquals(bookingService.getById(1, 1), booking);
@@ -578,14 +900,12 @@ public class BookingControllerTests {
 
     @Test
     public void getBookingByIdUserIsOwnerSuccessful() {
+        booking.setItem(item);
+        booking.setBooker(user);
         item.setUserId(1);
         booking.setUserId(42);
 
-        when(userRepo.findById(anyInt()))
-                .thenReturn(Optional.ofNullable(user));
-        when(itemRepo.findById(anyInt()))
-                .thenReturn(Optional.ofNullable(item));
-        when(repository.findById(anyInt()))
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.ofNullable(booking));
 
         Assertions.assertEquals(bookingService.getById(1, 1), booking);
@@ -593,14 +913,12 @@ public class BookingControllerTests {
 
     @Test
     public void getBookingByIdUserIsBookerSuccessful() {
+        booking.setItem(item);
+        booking.setBooker(user);
         item.setUserId(42);
         booking.setUserId(1);
 
-        when(userRepo.findById(anyInt()))
-                .thenReturn(Optional.ofNullable(user));
-        when(itemRepo.findById(anyInt()))
-                .thenReturn(Optional.ofNullable(item));
-        when(repository.findById(anyInt()))
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.ofNullable(booking));
 
         Assertions.assertEquals(bookingService.getById(1, 1), booking);
@@ -608,7 +926,7 @@ public class BookingControllerTests {
 
     @Test
     public void getBookingByIdNotFoundThrowsException() {
-        when(repository.findById(anyInt()))
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.empty());
 
         try {
@@ -620,11 +938,8 @@ public class BookingControllerTests {
 
     @Test
     public void getBookingByIdItemNotFoundThrowsException() {
-        when(userRepo.findById(anyInt()))
-                .thenReturn(Optional.ofNullable(user));
-        when(itemRepo.findById(anyInt()))
-                .thenReturn(Optional.empty());
-        when(repository.findById(anyInt()))
+        booking.setBooker(user);
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.ofNullable(booking));
 
         try {
@@ -636,11 +951,8 @@ public class BookingControllerTests {
 
     @Test
     public void getBookingByIdBookerNotFoundThrowsException() {
-        when(userRepo.findById(anyInt()))
-                .thenReturn(Optional.empty());
-        when(itemRepo.findById(anyInt()))
-                .thenReturn(Optional.ofNullable(item));
-        when(repository.findById(anyInt()))
+        booking.setItem(item);
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.ofNullable(booking));
 
         try {
@@ -652,11 +964,7 @@ public class BookingControllerTests {
 
     @Test
     public void getBookingByIdItemNotFoundAndBookerNotFoundThrowsException() {
-        when(userRepo.findById(anyInt()))
-                .thenReturn(Optional.empty());
-        when(itemRepo.findById(anyInt()))
-                .thenReturn(Optional.empty());
-        when(repository.findById(anyInt()))
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.ofNullable(booking));
 
         try {
@@ -668,14 +976,12 @@ public class BookingControllerTests {
 
     @Test
     public void getBookingByIdUserIsNotOwnerAndNotBookerThrowsException() {
+        booking.setItem(item);
+        booking.setBooker(user);
         item.setUserId(42);
         booking.setUserId(42);
 
-        when(userRepo.findById(anyInt()))
-                .thenReturn(Optional.ofNullable(user));
-        when(itemRepo.findById(anyInt()))
-                .thenReturn(Optional.ofNullable(item));
-        when(repository.findById(anyInt()))
+        when(repository.findWithItemAndBookerById(anyInt()))
                 .thenReturn(Optional.ofNullable(booking));
 
         try {
@@ -697,8 +1003,6 @@ public class BookingControllerTests {
 
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(itemRepo.findAll())
-                .thenReturn(List.of(item));
         when(repository.findByUserId(anyInt(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
         when(repository.findByUserIdAndStartBeforeAndEndAfter(anyInt(), any(), any(), any()))
@@ -730,8 +1034,6 @@ public class BookingControllerTests {
 
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(itemRepo.findAll())
-                .thenReturn(List.of(item));
         when(repository.findByUserId(anyInt(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
         when(repository.findByUserIdAndStartBeforeAndEndAfter(anyInt(), any(), any(), any()))
@@ -794,8 +1096,6 @@ public class BookingControllerTests {
 
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(itemRepo.findAll())
-                .thenReturn(List.of(item));
         when(repository.findByUserId(anyInt(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
         when(repository.findByUserIdAndStartBeforeAndEndAfter(anyInt(), any(), any(), any()))
@@ -836,21 +1136,15 @@ public class BookingControllerTests {
 
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(userRepo.findAll())
-                .thenReturn(List.of(user));
-        when(itemRepo.findAll())
-                .thenReturn(List.of(item));
-        when(itemRepo.findAllByUserIdOrderById(anyInt()))
-                .thenReturn(List.of(item));
-        when(repository.findByItemIdIn(any(), any()))
+        when(repository.findByOwnerId(anyInt(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
-        when(repository.findByItemIdInAndStartBeforeAndEndAfter(any(), any(), any(), any()))
+        when(repository.findCurrentByOwnerId(anyInt(), any(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
-        when(repository.findByItemIdInAndEndBefore(any(), any(), any()))
+        when(repository.findPastByOwnerId(anyInt(), any(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
-        when(repository.findByItemIdInAndStartAfter(any(), any(), any()))
+        when(repository.findFutureByOwnerId(anyInt(), any(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
-        when(repository.findByItemIdInAndStatus(any(), any(), any()))
+        when(repository.findByOwnerIdAndStatus(anyInt(), any(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
 
         for (String s : states) {
@@ -874,21 +1168,15 @@ public class BookingControllerTests {
 
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(userRepo.findAll())
-                .thenReturn(List.of(user));
-        when(itemRepo.findAll())
-                .thenReturn(List.of(item));
-        when(itemRepo.findAllByUserIdOrderById(anyInt()))
-                .thenReturn(List.of(item));
-        when(repository.findByItemIdIn(any(), any()))
+        when(repository.findByOwnerId(anyInt(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
-        when(repository.findByItemIdInAndStartBeforeAndEndAfter(any(), any(), any(), any()))
+        when(repository.findCurrentByOwnerId(anyInt(), any(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
-        when(repository.findByItemIdInAndEndBefore(any(), any(), any()))
+        when(repository.findPastByOwnerId(anyInt(), any(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
-        when(repository.findByItemIdInAndStartAfter(any(), any(), any()))
+        when(repository.findFutureByOwnerId(anyInt(), any(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
-        when(repository.findByItemIdInAndStatus(any(), any(), any()))
+        when(repository.findByOwnerIdAndStatus(anyInt(), any(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
 
         for (String s : states) {
@@ -910,8 +1198,6 @@ public class BookingControllerTests {
     public void getBookingByOwnerIdUnsupportedStateThrowsException() {
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(itemRepo.findAllByUserIdOrderById(anyInt()))
-                .thenReturn(List.of(item));
 
         try {
             bookingService.getByOwnerId(1, State.TEST.name(), 0, 5);
@@ -936,16 +1222,14 @@ public class BookingControllerTests {
     public void getBookingByOwnerItemsNotFoundThrowsException() {
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(userRepo.findAll())
-                .thenReturn(List.of(user));
-        when(itemRepo.findAllByUserIdOrderById(anyInt()))
-                .thenReturn(new ArrayList<>());
-
-        try {
-            bookingService.getByOwnerId(1, "ALL", 0, 5);
-        } catch (NotFoundException e) {
-            Assertions.assertEquals("У пользователь не найдено вещей", e.getMessage());
-        }
+        when(repository.findByOwnerId(anyInt(), any()))
+                .thenReturn(Page.empty());
+        when(itemRepo.existsByUserId(anyInt()))
+                .thenReturn(false);
+
+        NotFoundException e = Assertions.assertThrows(NotFoundException.class,
+                () -> bookingService.getByOwnerId(1, "ALL", 0, 5));
+        Assertions.assertEquals("У пользователь не найдено вещей", e.getMessage());
     }
 
     @Test
@@ -960,21 +1244,15 @@ public class BookingControllerTests {
 
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(userRepo.findAll())
-                .thenReturn(List.of(user));
-        when(itemRepo.findAll())
-                .thenReturn(List.of(item));
-        when(itemRepo.findAllByUserIdOrderById(anyInt()))
-                .thenReturn(List.of(item));
-        when(repository.findByItemIdIn(any(), any()))
+        when(repository.findByOwnerId(anyInt(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
-        when(repository.findByItemIdInAndStartBeforeAndEndAfter(any(), any(), any(), any()))
+        when(repository.findCurrentByOwnerId(anyInt(), any(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
-        when(repository.findByItemIdInAndEndBefore(any(), any(), any()))
+        when(repository.findPastByOwnerId(anyInt(), any(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
-        when(repository.findByItemIdInAndStartAfter(any(), any(), any()))
+        when(repository.findFutureByOwnerId(anyInt(), any(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
-        when(repository.findByItemIdInAndStatus(any(), any(), any()))
+        when(repository.findByOwnerIdAndStatus(anyInt(), any(), any()))
                 .thenReturn(new PageImpl<>(List.of(booking)));
 
         for (String s : states) {
@@ -986,8 +1264,6 @@ public class BookingControllerTests {
     public void getBookingByOwnerIdWithPaginationUnsupportedStateThrowsException() {
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(itemRepo.findAllByUserIdOrderById(anyInt()))
-                .thenReturn(List.of(item));
 
         try {
             bookingService.getByOwnerId(1, State.TEST.name(), 0, 2);
@@ -996,10 +1272,102 @@ public class BookingControllerTests {
         }
     }
 
+    @Test
+    public void getBookingByOwnerIdTakesItemAndBookerFromBookingQuery() {
+        booking.setItem(item);
+        booking.setBooker(user);
+
+        when(userRepo.findById(anyInt()))
+                .thenReturn(Optional.ofNullable(user));
+        when(repository.findByOwnerId(anyInt(), any()))
+                .thenReturn(new PageImpl<>(List.of(booking)));
+
+        Booking found = bookingService.getByOwnerId(1, State.ALL.name(), 0, 5).getContent().get(0);
+
+        Assertions.assertEquals(item, found.getItem());
+        Assertions.assertEquals(user, found.getBooker());
+        verify(itemRepo, never()).findAllById(any());
+        verify(userRepo, never()).findAllById(any());
+        verify(itemRepo, never()).findAllByUserIdOrderById(anyInt());
+        verify(itemRepo, never()).existsByUserId(anyInt());
+        verify(itemRepo, never()).findAll();
+        verify(userRepo, never()).findAll();
+    }
+
+    @Test
+    public void getBookingByUserIdAfterCursorSuccessful() {
+        List<String> states = new ArrayList<>();
+        states.add(State.ALL.name());
+        states.add(State.CURRENT.name());
+        states.add(State.PAST.name());
+        states.add(State.FUTURE.name());
+        states.add(State.WAITING.name());
+        states.add(State.REJECTED.name());
+
+        when(userRepo.findById(anyInt()))
+                .thenReturn(Optional.ofNullable(user));
+        when(repository.findByUserIdAfterCursor(anyInt(), any(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+        when(repository.findCurrentByUserIdAfterCursor(anyInt(), any(), any(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+        when(repository.findPastByUserIdAfterCursor(anyInt(), any(), any(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+        when(repository.findFutureByUserIdAfterCursor(anyInt(), any(), any(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+        when(repository.findByUserIdAndStatusAfterCursor(anyInt(), any(), any(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+
+        for (String s : states) {
+            Assertions.assertEquals(bookingService.getByUserIdAfter(1, s, "2030-01-01T10:00,5", 5)
+                    .stream().findFirst(), Optional.ofNullable(booking));
+        }
+        verify(repository).findByUserIdAfterCursor(1, LocalDateTime.of(2030, 1, 1, 10, 0), 5,
+                PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "end").and(Sort.by(Sort.Direction.DESC, "id"))));
+    }
+
+    @Test
+    public void getBookingByOwnerIdAfterCursorSuccessful() {
+        List<String> states = new ArrayList<>();
+        states.add(State.ALL.name());
+        states.add(State.CURRENT.name());
+        states.add(State.PAST.name());
+        states.add(State.FUTURE.name());
+        states.add(State.WAITING.name());
+        states.add(State.REJECTED.name());
+
+        when(userRepo.findById(anyInt()))
+                .thenReturn(Optional.ofNullable(user));
+        when(repository.findByOwnerIdAfterCursor(anyInt(), any(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+        when(repository.findCurrentByOwnerIdAfterCursor(anyInt(), any(), any(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+        when(repository.findPastByOwnerIdAfterCursor(anyInt(), any(), any(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+        when(repository.findFutureByOwnerIdAfterCursor(anyInt(), any(), any(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+        when(repository.findByOwnerIdAndStatusAfterCursor(anyInt(), any(), any(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+
+        for (String s : states) {
+            Assertions.assertEquals(bookingService.getByOwnerIdAfter(1, s, "", 5)
+                    .stream().findFirst(), Optional.ofNullable(booking));
+        }
+    }
+
+    @Test
+    public void getBookingByUserIdWithWrongCursorThrowsException() {
+        when(userRepo.findById(anyInt()))
+                .thenReturn(Optional.ofNullable(user));
+
+        BookingCursorException e = Assertions.assertThrows(BookingCursorException.class,
+                () -> bookingService.getByUserIdAfter(1, "ALL", "yesterday", 5));
+        Assertions.assertEquals("Unknown cursor: yesterday", e.getMessage());
+        Assertions.assertThrows(BookingCursorException.class,
+                () -> bookingService.getByUserIdAfter(1, "ALL", "2030-01-01T10:00,x", 5));
+    }
+
     @Test
     public void mapperTest() {
-        bookingDto.setBooker(user);
-        bookingDto.setItem(item);
         Booking newBooking = BookingMapper.toBooking(bookingDto);
         Assertions.assertEquals(newBooking.getId(), bookingDto.getId());
 
@@ -1024,5 +1392,125 @@ public class BookingControllerTests {
         Assertions.assertEquals(booking.getEnd(), bII.getEnd());
         Assertions.assertEquals(booking.getUserId(), bII.getBookerId());
     }
+
+    @Test
+    public void createBookingBatchReportsEachElement() {
+        Booking missingItem = new Booking();
+        missingItem.setItemId(5);
+        missingItem.setStart(booking.getStart());
+        missingItem.setEnd(booking.getEnd());
+        Booking inPast = new Booking();
+        inPast.setItemId(1);
+        inPast.setStart(LocalDateTime.now().minusDays(1));
+        inPast.setEnd(LocalDateTime.now().plusDays(1));
+        item.setUserId(2);
+
+        when(userRepo.findById(anyInt()))
+                .thenReturn(Optional.ofNullable(user));
+        when(itemRepo.findAllById(anyIterable()))
+                .thenReturn(List.of(item));
+
+        List<BookingBatchResult> results = bookingService.addNewBookings(1, List.of(booking, missingItem, inPast));
+
+        Assertions.assertEquals(booking, results.get(0).getBooking());
+        Assertions.assertEquals(BookingStatus.WAITING, booking.getStatus());
+        Assertions.assertInstanceOf(NotFoundException.class, results.get(1).getError());
+        Assertions.assertInstanceOf(BookingDateException.class, results.get(2).getError());
+        verify(repository).saveAll(List.of(booking));
+    }
+
+    @Test
+    public void approveBookingBatchRejectsOverlapWithinBatch() {
+        Booking overlapping = new Booking();
+        overlapping.setId(2);
+        overlapping.setItemId(1);
+        overlapping.setUserId(2);
+        overlapping.setStart(booking.getStart().plusMinutes(5));
+        overlapping.setEnd(booking.getEnd().plusMinutes(5));
+        overlapping.setStatus(BookingStatus.WAITING);
+        booking.setUserId(2);
+        item.setUserId(1);
+        User booker = new User();
+        booker.setId(2);
+
+        when(userRepo.findById(anyInt()))
+                .thenReturn(Optional.ofNullable(user));
+        when(repository.findAllById(anyIterable()))
+                .thenReturn(List.of(booking, overlapping));
+        when(itemRepo.findAllById(anyIterable()))
+                .thenReturn(List.of(item));
+        when(userRepo.findAllById(anyIterable()))
+                .thenReturn(List.of(booker));
+
+        List<BookingBatchResult> results = bookingService.putAll(1, List.of(
+                new BookingApproval(1, true), new BookingApproval(2, true), new BookingApproval(3, true)));
+
+        Assertions.assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        Assertions.assertInstanceOf(ItemNotAvailableException.class, results.get(1).getError());
+        Assertions.assertEquals(BookingStatus.WAITING, overlapping.getStatus());
+        Assertions.assertInstanceOf(NotFoundException.class, results.get(2).getError());
+        verify(repository).saveAll(List.of(booking));
+    }
+
+    @Test
+    public void approveBookingBatchReleasesIntervalsWhenSaveFails() {
+        Booking later = new Booking();
+        later.setId(2);
+        later.setItemId(1);
+        later.setUserId(2);
+        later.setStart(booking.getEnd());
+        later.setEnd(booking.getEnd().plusMinutes(10));
+        later.setStatus(BookingStatus.WAITING);
+        booking.setUserId(2);
+        item.setUserId(1);
+        User booker = new User();
+        booker.setId(2);
+
+        when(userRepo.findById(anyInt()))
+                .thenReturn(Optional.ofNullable(user));
+        when(repository.findAllById(anyIterable()))
+                .thenReturn(List.of(booking, later));
+        when(itemRepo.findAllById(anyIterable()))
+                .thenReturn(List.of(item));
+        when(userRepo.findAllById(anyIterable()))
+                .thenReturn(List.of(booker));
+        when(repository.saveAll(anyIterable()))
+                .thenThrow(new DataIntegrityViolationException("flush failed"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Assertions.assertThrows(DataIntegrityViolationException.class, () -> bookingService.putAll(1, List.of(
+                    new BookingApproval(2, true), new BookingApproval(1, true))));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(x -> x.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assertions.assertFalse(intervalIndex.overlaps(1, booking.getStart(), booking.getEnd()));
+        Assertions.assertFalse(intervalIndex.overlaps(1, later.getStart(), later.getEnd()));
+    }
+
+    @Test
+    public void approveBookingBatchChecksOwnership() {
+        item.setUserId(5);
+        booking.setUserId(2);
+        User booker = new User();
+        booker.setId(2);
+
+        when(userRepo.findById(anyInt()))
+                .thenReturn(Optional.ofNullable(user));
+        when(repository.findAllById(anyIterable()))
+                .thenReturn(List.of(booking));
+        when(itemRepo.findAllById(anyIterable()))
+                .thenReturn(List.of(item));
+        when(userRepo.findAllById(anyIterable()))
+                .thenReturn(List.of(booker));
+
+        List<BookingBatchResult> results = bookingService.putAll(1, List.of(new BookingApproval(1, true)));
+
+        Assertions.assertInstanceOf(WrongOwnerException.class, results.get(0).getError());
+        Assertions.assertEquals(BookingStatus.WAITING, booking.getStatus());
+    }
     //-- Unit-тесты сервиса
 }
@@ -6,11 +6,22 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingApproval;
+import ru.practicum.shareit.booking.BookingBatchResult;
+import ru.practicum.shareit.booking.BookingExportFormat;
+import ru.practicum.shareit.booking.BookingExporter;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingServiceImpl;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.ItemBookingProjection;
+import ru.practicum.shareit.exception.ItemNotAvailableException;
+import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.ItemServiceImpl;
 import ru.practicum.shareit.item.model.Item;
@@ -21,12 +32,18 @@ import ru.practicum.shareit.user.UserService;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Transactional
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
@@ -55,6 +72,15 @@ public class BookingServiceIntegrationTests {
     @Autowired
     ItemRepository itemRepo;
 
+    @Autowired
+    BookingIntervalIndex intervalIndex;
+
+    @Autowired
+    ItemBookingProjection bookingProjection;
+
+    @Autowired
+    BookingExporter exporter;
+
     private Booking booking;
 
     private Item item;
@@ -90,7 +116,7 @@ public class BookingServiceIntegrationTests {
         booking.setBooker(booker);
         booking.setStatus(BookingStatus.WAITING);
 
-        service = new BookingServiceImpl(repository, userRepo, itemRepo);
+        service = new BookingServiceImpl(repository, userRepo, itemRepo, intervalIndex, bookingProjection);
     }
 
     @Test
@@ -176,4 +202,171 @@ public class BookingServiceIntegrationTests {
 
         assertThat(((int) bookings.getTotalElements()), equalTo(bookings1.size()));
     }
+
+    @Test
+    public void overlappingBookingIsRejectedAfterApproval() {
+        service.addNewBooking(booker.getId(), booking);
+        service.put(owner.getId(), booking.getId(), true);
+
+        Booking overlapping = new Booking();
+        overlapping.setStart(booking.getStart().plusMinutes(5));
+        overlapping.setEnd(booking.getEnd().plusMinutes(5));
+        overlapping.setItemId(item.getId());
+
+        assertThat(service.isAvailable(item.getId(), overlapping.getStart(), overlapping.getEnd()), equalTo(false));
+        assertThat(service.isAvailable(item.getId(), booking.getEnd(), booking.getEnd().plusMinutes(5)),
+                equalTo(true));
+        assertThrows(ItemNotAvailableException.class, () -> service.addNewBooking(booker.getId(), overlapping));
+    }
+
+    @Test
+    public void getBookingsByOwnerIdWithCursor() {
+        for (int i = 0; i < 3; i++) {
+            Booking next = new Booking();
+            next.setStart(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(i + 1));
+            next.setEnd(next.getStart().plusHours(1));
+            next.setItemId(item.getId());
+            service.addNewBooking(booker.getId(), next);
+        }
+
+        Slice<Booking> firstPage = service.getByOwnerIdAfter(owner.getId(), "ALL", "", 2);
+        Booking lastOnFirstPage = firstPage.getContent().get(1);
+        Slice<Booking> secondPage = service.getByOwnerIdAfter(owner.getId(), "ALL",
+                lastOnFirstPage.getEnd() + "," + lastOnFirstPage.getId(), 2);
+
+        assertThat(firstPage.getContent().size(), equalTo(2));
+        assertThat(firstPage.hasNext(), equalTo(true));
+        assertThat(firstPage.getContent().get(0).getEnd().isAfter(lastOnFirstPage.getEnd()), equalTo(true));
+        assertThat(secondPage.getContent().size(), equalTo(1));
+        assertThat(secondPage.hasNext(), equalTo(false));
+        assertThat(secondPage.getContent().get(0).getEnd().isBefore(lastOnFirstPage.getEnd()), equalTo(true));
+        assertThat(secondPage.getContent().get(0).getBooker().getId(), equalTo(booker.getId()));
+        assertThat(secondPage.getContent().get(0).getItem().getName(), equalTo(item.getName()));
+    }
+
+    @Test
+    public void batchCreateAndApproveAreSetBased() {
+        Booking overlapping = new Booking();
+        overlapping.setStart(booking.getStart().plusMinutes(5));
+        overlapping.setEnd(booking.getEnd().plusMinutes(5));
+        overlapping.setItemId(item.getId());
+        Booking later = new Booking();
+        later.setStart(booking.getStart().plusHours(1));
+        later.setEnd(booking.getEnd().plusHours(1));
+        later.setItemId(item.getId());
+
+        List<BookingBatchResult> created = service.addNewBookings(booker.getId(), List.of(booking, overlapping, later));
+        assertThat(created.stream().filter(result -> result.getError() == null).count(), equalTo(3L));
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<BookingBatchResult> decided = service.putAll(owner.getId(), List.of(
+                new BookingApproval(booking.getId(), true),
+                new BookingApproval(overlapping.getId(), true),
+                new BookingApproval(later.getId(), false)));
+        em.flush();
+
+        assertThat(decided.get(1).getError().getClass(), equalTo(ItemNotAvailableException.class));
+        // owner, bookings, items and bookers are loaded with one query each; the two updates share a batch
+        assertThat(statistics.getPrepareStatementCount() <= 5, equalTo(true));
+        assertThat(statistics.getEntityUpdateCount(), equalTo(2L));
+        em.clear();
+        assertThat(repository.findById(booking.getId()).orElseThrow().getStatus(), equalTo(BookingStatus.APPROVED));
+        assertThat(repository.findById(overlapping.getId()).orElseThrow().getStatus(), equalTo(BookingStatus.WAITING));
+        assertThat(repository.findById(later.getId()).orElseThrow().getStatus(), equalTo(BookingStatus.REJECTED));
+    }
+
+    @Test
+    public void bookingReadsFetchItemAndBookerWithBooking() {
+        service.addNewBooking(booker.getId(), booking);
+        em.flush();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        // separate item and booker lookups took 3 statements here, 4 in put and 5 for the owner list;
+        // the owner list is the owner check plus one join on items.owner_id
+        clearCaches(statistics);
+        Booking found = service.getById(booker.getId(), booking.getId());
+        assertThat(statistics.getPrepareStatementCount(), equalTo(1L));
+        assertThat(found.getItem().getName(), equalTo(item.getName()));
+        assertThat(found.getBooker().getName(), equalTo(booker.getName()));
+
+        clearCaches(statistics);
+        Booking byBooker = service.getByUserId(booker.getId(), "ALL", 0, 10).getContent().get(0);
+        assertThat(statistics.getPrepareStatementCount(), equalTo(2L));
+        assertThat(byBooker.getItem().getName(), equalTo(item.getName()));
+
+        clearCaches(statistics);
+        Booking byOwner = service.getByOwnerId(owner.getId(), "ALL", 0, 10).getContent().get(0);
+        assertThat(statistics.getPrepareStatementCount(), equalTo(2L));
+        assertThat(byOwner.getBooker().getName(), equalTo(booker.getName()));
+
+        clearCaches(statistics);
+        service.put(owner.getId(), booking.getId(), true);
+        assertThat(statistics.getPrepareStatementCount(), equalTo(2L));
+    }
+
+    private void clearCaches(Statistics statistics) {
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll();
+        statistics.clear();
+    }
+
+    @Test
+    public void ownerBookingsAreSelectedByItemOwner() {
+        service.addNewBooking(booker.getId(), booking);
+        Item otherItem = new Item();
+        otherItem.setName("other");
+        otherItem.setDescription("other description");
+        otherItem.setAvailable(true);
+        itemService.addNewItem(booker.getId(), otherItem);
+        Booking otherBooking = new Booking();
+        otherBooking.setStart(booking.getStart());
+        otherBooking.setEnd(booking.getEnd());
+        otherBooking.setItemId(otherItem.getId());
+        service.addNewBooking(owner.getId(), otherBooking);
+        em.flush();
+
+        Page<Booking> ownerBookings = service.getByOwnerId(owner.getId(), "ALL", 0, 10);
+        assertThat(ownerBookings.getTotalElements(), equalTo(1L));
+        assertThat(ownerBookings.getContent().get(0).getId(), equalTo(booking.getId()));
+        assertThat(service.getByOwnerId(owner.getId(), "REJECTED", 0, 10).isEmpty(), equalTo(true));
+        assertThat(service.getByOwnerIdAfter(owner.getId(), "FUTURE", "", 10).getContent().get(0).getId(),
+                equalTo(booking.getId()));
+
+        User withoutItems = new User();
+        withoutItems.setName("no_items");
+        withoutItems.setEmail("no_items@test.ru");
+        userService.create(withoutItems);
+        assertThrows(NotFoundException.class, () -> service.getByOwnerId(withoutItems.getId(), "ALL", 0, 10));
+    }
+
+    @Test
+    public void exportWritesAllOwnerBookings() throws Exception {
+        service.addNewBooking(booker.getId(), booking);
+        Booking second = new Booking();
+        second.setStart(booking.getStart().plusDays(1));
+        second.setEnd(booking.getEnd().plusDays(1));
+        second.setItemId(item.getId());
+        service.addNewBooking(booker.getId(), second);
+        em.flush();
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        long exported = exporter.export(owner.getId(), BookingExportFormat.NDJSON, ndjson);
+        String[] lines = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(exported, equalTo(2L));
+        assertThat(lines.length, equalTo(2));
+        assertThat(lines[0], containsString("\"id\":" + second.getId()));
+        assertThat(lines[1], containsString("\"name\":\"" + item.getName() + "\""));
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exporter.export(owner.getId(), BookingExportFormat.CSV, csv);
+        lines = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines.length, equalTo(3));
+        assertThat(lines[0], equalTo(BookingExporter.CSV_HEADER));
+        assertThat(lines[2], startsWith(booking.getId() + ","));
+
+        assertThrows(NotFoundException.class, () -> exporter.checkOwner(booker.getId()));
+    }
 }
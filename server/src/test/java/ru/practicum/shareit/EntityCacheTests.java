@@ -0,0 +1,120 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemServiceImpl;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserService;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Runs without a test transaction: every service call gets its own session, so repeated lookups
+ * can only be served by the second-level cache.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public class EntityCacheTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemServiceImpl itemService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+
+    private Item item;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (item != null) {
+            itemRepository.deleteById(item.getId());
+        }
+        if (owner != null) {
+            userRepository.deleteById(owner.getId());
+        }
+    }
+
+    @Test
+    public void userLookupsHitCacheAndSeeUpdatesAndDeletes() {
+        User user = new User();
+        user.setName("cached_user");
+        user.setEmail("cached@test.ru");
+        userService.create(user);
+
+        userService.findById(user.getId());
+        userService.findById(user.getId());
+        Assertions.assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+
+        User update = new User();
+        update.setName("renamed_user");
+        userService.put(user.getId(), update);
+        Assertions.assertEquals("renamed_user", userService.findById(user.getId()).getName());
+
+        userService.deleteUser(user.getId());
+        Assertions.assertThrows(NotFoundException.class, () -> userService.findById(user.getId()));
+    }
+
+    @Test
+    public void itemUpdateReplacesCachedItem() {
+        owner = new User();
+        owner.setName("cached_owner");
+        owner.setEmail("cached_owner@test.ru");
+        userService.create(owner);
+
+        item = new Item();
+        item.setName("cached item");
+        item.setDescription("cached item description");
+        item.setAvailable(true);
+        itemService.addNewItem(owner.getId(), item);
+        itemService.getById(owner.getId(), item.getId());
+
+        Item update = new Item();
+        update.setAvailable(false);
+        itemService.put(owner.getId(), item.getId(), update);
+
+        Item found = itemService.getById(owner.getId(), item.getId());
+        Assertions.assertFalse(found.getAvailable());
+        Assertions.assertEquals("cached item", found.getName());
+        Assertions.assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+    }
+
+    @Test
+    public void cacheMetricsArePublished() {
+        Assertions.assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests")
+                .tag("region", "users")
+                .meter());
+    }
+}
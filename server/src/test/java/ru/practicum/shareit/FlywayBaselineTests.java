@@ -0,0 +1,67 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItems;
+
+/**
+ * Starts the server against a database whose tables were created by the old schema.sql, before Flyway.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "db.name=legacy")
+public class FlywayBaselineTests {
+
+    // keeps the in-memory database alive until the context connects
+    private static final Connection LEGACY = createLegacySchema();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterAll
+    static void closeLegacy() throws SQLException {
+        LEGACY.close();
+    }
+
+    @Test
+    void existingSchemaIsBaselinedAndMigrated() {
+        List<String> types = jdbcTemplate.queryForList(
+                "SELECT \"type\" FROM \"flyway_schema_history\" WHERE \"version\" = '1'", String.class);
+        List<String> applied = jdbcTemplate.queryForList(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\"", String.class);
+
+        assertThat(types, equalTo(List.of("BASELINE")));
+        assertThat(applied, hasItems("1", "2", "4"));
+    }
+
+    private static Connection createLegacySchema() {
+        try {
+            Connection connection = DriverManager.getConnection("jdbc:h2:mem:legacy;MODE=PostgreSQL", "test", "test");
+            String schema = StreamUtils.copyToString(
+                    new ClassPathResource("db/migration/common/V1__init_schema.sql").getInputStream(),
+                    StandardCharsets.UTF_8);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(schema);
+            }
+            return connection;
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
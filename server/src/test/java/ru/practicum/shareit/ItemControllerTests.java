@@ -8,12 +8,17 @@ import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.ItemBookingProjection;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.UserNotBookedItemException;
 import ru.practicum.shareit.exception.WrongOwnerException;
@@ -36,6 +41,8 @@ import java.util.Optional;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -55,6 +62,9 @@ public class ItemControllerTests {
     @MockBean
     ItemRepository itemRepository;
 
+    @MockBean
+    ItemImporter itemImporterMock;
+
     private Item item;
 
     private ItemDto itemDto;
@@ -80,6 +90,8 @@ public class ItemControllerTests {
 
     ItemServiceImpl itemService;
 
+    ItemBookingProjection bookingProjection;
+
     @BeforeEach
     void setUp() {
         item = new Item();
@@ -105,7 +117,20 @@ public class ItemControllerTests {
         itemRequest.setDescription("test item request");
         item.setRequestId(itemRequest.getId());
 
-        itemService = new ItemServiceImpl(repository, userRepo, bookingRepo, commentRepo, requestRepo);
+        bookingProjection = new ItemBookingProjection(bookingRepo);
+        itemService = new ItemServiceImpl(repository, userRepo, bookingRepo, commentRepo, requestRepo,
+                new TrigramItemSearchEngine(repository), bookingProjection);
+    }
+
+    private Booking approvedBooking(int id, LocalDateTime start) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setItemId(item.getId());
+        booking.setUserId(user.getId());
+        booking.setStatus(BookingStatus.APPROVED);
+        booking.setStart(start);
+        booking.setEnd(start.plusHours(1));
+        return booking;
     }
 
     //++ Тесты контроллера
@@ -295,6 +320,23 @@ public class ItemControllerTests {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.['id']").value(commentDto.getId()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.['text']").value(commentDto.getText()));
     }
+
+    @Test
+    void importItemsTest() throws Exception {
+        ItemImportResult result = new ItemImportResult();
+        when(itemImporterMock.importItems(anyInt(), any()))
+                .thenReturn(result);
+        mockMvc.perform(post("/items/import")
+                        .header("X-Sharer-User-Id", 1)
+                        .content("{\"name\":\"test item\",\"description\":\"test\",\"available\":true}\n")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType("application/x-ndjson")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.imported").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors", hasSize(0)));
+        verify(itemImporterMock).importItems(eq(1), any());
+    }
     //-- Тесты контроллера
 
     //++ Unit-тесты сервиса
@@ -334,20 +376,67 @@ public class ItemControllerTests {
                 .thenReturn(Optional.ofNullable(item));
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(userRepo.findAll())
+        when(userRepo.findAllById(any()))
                 .thenReturn(List.of(user));
         when(requestRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(itemRequest));
-        when(bookingRepo.findFirstByItemIdAndStartBeforeOrderByStartDesc(anyInt(), any()))
-                .thenReturn(lastBooking);
-        when(bookingRepo.findFirstByItemIdAndStartAfterOrderByStartAsc(anyInt(), any()))
-                .thenReturn(nextBooking);
         when(commentRepo.findByItemId(anyInt()))
                 .thenReturn(List.of(comment));
 
         Assertions.assertEquals(itemService.getById(1, 1), item);
     }
 
+    @Test
+    public void findByIdReadsBookingDatesFromProjection() {
+        Booking lastBooking = approvedBooking(1, LocalDateTime.now().minusDays(2));
+        Booking nextBooking = approvedBooking(2, LocalDateTime.now().plusDays(2));
+        Booking laterBooking = approvedBooking(3, LocalDateTime.now().plusDays(5));
+        bookingProjection.add(laterBooking);
+        bookingProjection.add(nextBooking);
+        bookingProjection.add(lastBooking);
+
+        when(repository.findById(anyInt()))
+                .thenReturn(Optional.ofNullable(item));
+        when(commentRepo.findByItemId(anyInt()))
+                .thenReturn(List.of());
+
+        Item found = itemService.getById(1, 1);
+        Assertions.assertEquals(1, found.getLastBooking().getId());
+        Assertions.assertEquals(2, found.getNextBooking().getId());
+    }
+
+    @Test
+    public void bookingProjectionAdvancesStartedBookings() {
+        Booking started = approvedBooking(1, LocalDateTime.now().plusNanos(1));
+        Booking next = approvedBooking(2, LocalDateTime.now().plusDays(1));
+        Booking waiting = approvedBooking(3, LocalDateTime.now().plusHours(1));
+        waiting.setStatus(BookingStatus.WAITING);
+        bookingProjection.add(started);
+        bookingProjection.add(next);
+        bookingProjection.add(waiting);
+
+        bookingProjection.advance();
+
+        Assertions.assertEquals(1, bookingProjection.getLastBooking(item.getId()).getId());
+        Assertions.assertEquals(2, bookingProjection.getNextBooking(item.getId()).getId());
+        Assertions.assertNull(bookingProjection.getLastBooking(42));
+        Assertions.assertNull(bookingProjection.getNextBooking(42));
+    }
+
+    @Test
+    public void bookingProjectionWarmsUpFromRepository() {
+        when(bookingRepo.findLastBookings(anyString(), any()))
+                .thenReturn(List.of(approvedBooking(1, LocalDateTime.now().minusDays(1))));
+        when(bookingRepo.findByStatusAndStartAfter(any(), any()))
+                .thenReturn(List.of(approvedBooking(3, LocalDateTime.now().plusDays(3)),
+                        approvedBooking(2, LocalDateTime.now().plusDays(1))));
+
+        bookingProjection.warmUp();
+
+        Assertions.assertEquals(1, bookingProjection.getLastBooking(item.getId()).getId());
+        Assertions.assertEquals(2, bookingProjection.getNextBooking(item.getId()).getId());
+    }
+
     @Test
     public void findByIdWithoutBookingDatesSuccessful() {
         Booking lastBooking = new Booking();
@@ -364,14 +453,10 @@ public class ItemControllerTests {
                 .thenReturn(Optional.ofNullable(item));
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(userRepo.findAll())
+        when(userRepo.findAllById(any()))
                 .thenReturn(List.of(user));
         when(requestRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(itemRequest));
-        when(bookingRepo.findFirstByItemIdAndStartBeforeOrderByStartDesc(anyInt(), any()))
-                .thenReturn(lastBooking);
-        when(bookingRepo.findFirstByItemIdAndStartAfterOrderByStartAsc(anyInt(), any()))
-                .thenReturn(nextBooking);
         when(commentRepo.findByItemId(anyInt()))
                 .thenReturn(List.of(comment));
 
@@ -400,9 +485,6 @@ public class ItemControllerTests {
         nextBooking.setItemId(item.getId());
         nextBooking.setStart(LocalDateTime.of(2023, 5, 5, 0, 0));
         nextBooking.setEnd(LocalDateTime.of(2023, 5, 31, 0, 0));
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(lastBooking);
-        bookings.add(nextBooking);
 
         Comment comment = new Comment();
         comment.setId(1);
@@ -412,11 +494,9 @@ public class ItemControllerTests {
 
         when(repository.findAllByUserIdOrderById(anyInt(), any()))
                 .thenReturn(new PageImpl<>(List.of(item)));
-        when(userRepo.findAll())
+        when(userRepo.findAllById(any()))
                 .thenReturn(List.of(user));
-        when(bookingRepo.findAllByStatusOrderByStartDesc(any()))
-                .thenReturn(bookings);
-        when(commentRepo.findAll())
+        when(commentRepo.findByItemIdIn(any()))
                 .thenReturn(List.of(comment));
 
         Assertions.assertEquals(itemService.getAll(1, 0, 3).getTotalElements(), 1);
@@ -432,9 +512,6 @@ public class ItemControllerTests {
         nextBooking.setItemId(item.getId());
         nextBooking.setStart(LocalDateTime.of(2023, 5, 5, 0, 0));
         nextBooking.setEnd(LocalDateTime.of(2023, 5, 31, 0, 0));
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(lastBooking);
-        bookings.add(nextBooking);
 
         Comment comment = new Comment();
         comment.setId(1);
@@ -444,11 +521,9 @@ public class ItemControllerTests {
 
         when(repository.findAllByUserIdOrderById(anyInt(), any()))
                 .thenReturn(new PageImpl<>(List.of(item)));
-        when(userRepo.findAll())
+        when(userRepo.findAllById(any()))
                 .thenReturn(List.of(user));
-        when(bookingRepo.findAllByStatusOrderByStartDesc(any()))
-                .thenReturn(bookings);
-        when(commentRepo.findAll())
+        when(commentRepo.findByItemIdIn(any()))
                 .thenReturn(List.of(comment));
 
         Assertions.assertEquals(itemService.getAll(1, 0, 3).getTotalElements(), 1);
@@ -464,9 +539,6 @@ public class ItemControllerTests {
         nextBooking.setItemId(42);
         nextBooking.setStart(LocalDateTime.of(2023, 5, 5, 0, 0));
         nextBooking.setEnd(LocalDateTime.of(2023, 5, 31, 0, 0));
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(lastBooking);
-        bookings.add(nextBooking);
 
         Comment comment = new Comment();
         comment.setId(1);
@@ -476,11 +548,9 @@ public class ItemControllerTests {
 
         when(repository.findAllByUserIdOrderById(anyInt(), any()))
                 .thenReturn(new PageImpl<>(List.of(item)));
-        when(userRepo.findAll())
+        when(userRepo.findAllById(any()))
                 .thenReturn(List.of(user));
-        when(bookingRepo.findAllByStatusOrderByStartDesc(any()))
-                .thenReturn(bookings);
-        when(commentRepo.findAll())
+        when(commentRepo.findByItemIdIn(any()))
                 .thenReturn(List.of(comment));
 
         Assertions.assertEquals(itemService.getAll(1, 0, 3).getTotalElements(), 1);
@@ -496,9 +566,6 @@ public class ItemControllerTests {
         nextBooking.setItemId(item.getId());
         nextBooking.setStart(LocalDateTime.of(2023, 5, 5, 0, 0));
         nextBooking.setStart(LocalDateTime.of(2023, 5, 31, 0, 0));
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(lastBooking);
-        bookings.add(nextBooking);
 
         Comment comment = new Comment();
         comment.setId(1);
@@ -508,11 +575,9 @@ public class ItemControllerTests {
 
         when(repository.findAllByUserIdOrderById(anyInt(), any()))
                 .thenReturn(new PageImpl<>(List.of(item)));
-        when(userRepo.findAll())
+        when(userRepo.findAllById(any()))
                 .thenReturn(List.of(user));
-        when(bookingRepo.findAllByStatusOrderByStartDesc(any()))
-                .thenReturn(bookings);
-        when(commentRepo.findAll())
+        when(commentRepo.findByItemIdIn(any()))
                 .thenReturn(List.of(comment));
 
         Assertions.assertEquals(itemService.getAll(1, 1, 1).getSize(), 1);
@@ -539,9 +604,6 @@ public class ItemControllerTests {
         nextBooking.setItemId(item.getId());
         nextBooking.setStart(LocalDateTime.of(2023, 5, 5, 0, 0));
         nextBooking.setEnd(LocalDateTime.of(2023, 5, 31, 0, 0));
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(lastBooking);
-        bookings.add(nextBooking);
 
         Comment comment = new Comment();
         comment.setId(1);
@@ -553,22 +615,94 @@ public class ItemControllerTests {
         items.add(item);
         items.add(newItem);
 
-        when(repository.findByNameOrDescriptionNative(anyString(), anyString(), any()))
+        when(repository.findByNameOrDescriptionNative(anyString(), any()))
                 .thenReturn(new PageImpl<>(items));
         when(repository.findByNameLikeIgnoreCaseAndAvailableOrderById(anyString(), anyBoolean()))
                 .thenReturn(List.of(newItem));
         when(repository.findByDescriptionLikeIgnoreCaseAndAvailableOrderById(anyString(), anyBoolean()))
                 .thenReturn(List.of(item));
-        when(userRepo.findAll())
+        when(userRepo.findAllById(any()))
                 .thenReturn(List.of(user));
-        when(bookingRepo.findAllByStatusOrderByStartDesc(any()))
-                .thenReturn(bookings);
-        when(commentRepo.findAll())
+        when(commentRepo.findByItemIdIn(any()))
                 .thenReturn(List.of(comment));
 
         Assertions.assertEquals(itemService.search(1, "test", 0, 2).getSize(), 2);
     }
 
+    @Test
+    public void searchIndexIntersectsPostingsAndHonoursAvailable() {
+        ItemSearchIndex index = new ItemSearchIndex();
+        index.put(5, "Дрель", "ударная", true);
+        index.put(2, "Отвертка", "подходит к дрели", true);
+        index.put(9, "Дрель ударная", "мощная", true);
+        index.put(7, "Дрель старая", "сломана", false);
+        index.put(3, "Пылесос", "моющий", true);
+
+        Page<Integer> page = index.search("ДРЕЛ", PageRequest.of(0, 2));
+        Assertions.assertEquals(3, page.getTotalElements());
+        Assertions.assertEquals(List.of(5, 9), page.getContent());
+        Assertions.assertEquals(List.of(2), index.search("ДРЕЛ", PageRequest.of(1, 2)).getContent());
+        Assertions.assertEquals(List.of(9, 5), index.search("УДАРН", PageRequest.of(0, 10)).getContent());
+
+        index.put(7, "Дрель старая", "сломана", true);
+        index.put(5, "Дрель", "ударная", false);
+        Assertions.assertEquals(List.of(7, 9, 2), index.search("ДРЕЛ", PageRequest.of(0, 10)).getContent());
+        Assertions.assertEquals(4, index.size());
+        Assertions.assertEquals(0, index.search("ДРЕЛЬ ПЫЛ", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    public void searchIndexRestoresPreviousDocument() {
+        ItemSearchIndex index = new ItemSearchIndex();
+        index.put(1, "Дрель", "ударная", true);
+
+        ItemSearchIndex.Document previous = index.put(1, "Пылесос", "моющий", true);
+        Assertions.assertEquals(0, index.search("ДРЕЛЬ", PageRequest.of(0, 10)).getTotalElements());
+
+        index.restore(1, previous);
+        Assertions.assertEquals(List.of(1), index.search("ДРЕЛЬ", PageRequest.of(0, 10)).getContent());
+        Assertions.assertEquals(0, index.search("ПЫЛ", PageRequest.of(0, 10)).getTotalElements());
+
+        index.put(2, "Дрель", "новая", true);
+        Assertions.assertEquals(List.of(1, 2), index.search("ДРЕ", PageRequest.of(0, 10)).getContent());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> index.search("ДР", PageRequest.of(0, 10)));
+    }
+
+    @Test
+    public void inMemorySearchEngineRebuildsInBatchesAndHydratesPage() {
+        Item unavailable = new Item();
+        unavailable.setId(2);
+        unavailable.setName("test unavailable");
+        unavailable.setDescription("test");
+        unavailable.setAvailable(false);
+
+        when(repository.findAll(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(item), PageRequest.of(0, 1), 2))
+                .thenReturn(new PageImpl<>(List.of(unavailable), PageRequest.of(1, 1), 2));
+        when(repository.findAllById(any()))
+                .thenReturn(List.of(item));
+
+        InMemoryItemSearchEngine engine = new InMemoryItemSearchEngine(repository);
+        engine.rebuild();
+
+        Page<Item> found = engine.search("TEST", PageRequest.of(0, 10));
+        Assertions.assertEquals(1, found.getTotalElements());
+        Assertions.assertEquals(item.getId(), found.getContent().get(0).getId());
+        verify(repository).findAllById(List.of(item.getId()));
+    }
+
+    @Test
+    public void inMemorySearchEngineSendsShortQueriesToRepository() {
+        when(repository.findByNameOrDescriptionContaining(anyString(), any()))
+                .thenReturn(new PageImpl<>(List.of(item)));
+
+        InMemoryItemSearchEngine engine = new InMemoryItemSearchEngine(repository);
+
+        Assertions.assertEquals(List.of(item), engine.search("TE", PageRequest.of(0, 10)).getContent());
+        verify(repository).findByNameOrDescriptionContaining("TE", PageRequest.of(0, 10));
+        verify(repository, never()).findAllById(any());
+    }
+
     @Test
     public void updateItemSuccessful() {
         Item updItem = new Item();
@@ -585,9 +719,6 @@ public class ItemControllerTests {
         nextBooking.setItemId(item.getId());
         nextBooking.setStart(LocalDateTime.of(2023, 5, 5, 0, 0));
         nextBooking.setEnd(LocalDateTime.of(2023, 5, 31, 0, 0));
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(lastBooking);
-        bookings.add(nextBooking);
 
         Comment comment = new Comment();
         comment.setId(1);
@@ -599,13 +730,11 @@ public class ItemControllerTests {
                 .thenReturn(updItem);
         when(repository.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(item));
-        when(userRepo.findAll())
+        when(userRepo.findAllById(any()))
                 .thenReturn(List.of(user));
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(bookingRepo.findAllByStatusOrderByStartDesc(any()))
-                .thenReturn(bookings);
-        when(commentRepo.findAll())
+        when(commentRepo.findByItemIdIn(any()))
                 .thenReturn(List.of(comment));
 
         Assertions.assertEquals(itemService.put(1, 1, updItem), updItem);
@@ -621,7 +750,7 @@ public class ItemControllerTests {
                 .thenReturn(updItem);
         when(repository.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(item));
-        when(userRepo.findAll())
+        when(userRepo.findAllById(any()))
                 .thenReturn(List.of(user));
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
@@ -642,7 +771,7 @@ public class ItemControllerTests {
                 .thenReturn(updItem);
         when(repository.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(item));
-        when(userRepo.findAll())
+        when(userRepo.findAllById(any()))
                 .thenReturn(List.of(user));
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
@@ -662,7 +791,7 @@ public class ItemControllerTests {
                 .thenReturn(updItem);
         when(repository.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(item));
-        when(userRepo.findAll())
+        when(userRepo.findAllById(any()))
                 .thenReturn(List.of(user));
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
@@ -683,7 +812,7 @@ public class ItemControllerTests {
                 .thenReturn(updItem);
         when(repository.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(item));
-        when(userRepo.findAll())
+        when(userRepo.findAllById(any()))
                 .thenReturn(List.of(user));
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
@@ -703,7 +832,7 @@ public class ItemControllerTests {
                 .thenReturn(updItem);
         when(repository.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(item));
-        when(userRepo.findAll())
+        when(userRepo.findAllById(any()))
                 .thenReturn(List.of(user));
         when(userRepo.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
@@ -955,5 +1084,27 @@ public class ItemControllerTests {
         Assertions.assertEquals(newComment.getCreated(), commentDto.getCreated());
         Assertions.assertEquals(newComment.getAuthorName(), commentDto.getAuthorName());
     }
+
+    @Test
+    public void createNewItemsSetsOwner() {
+        when(userRepo.findById(anyInt()))
+                .thenReturn(Optional.ofNullable(user));
+        when(repository.saveAllAndFlush(anyList()))
+                .thenReturn(List.of(item));
+        item.setUserId(0);
+
+        Assertions.assertEquals(List.of(item), itemService.addNewItems(1, List.of(item)));
+        Assertions.assertEquals(1, item.getUserId());
+        Assertions.assertEquals(user, item.getOwner());
+    }
+
+    @Test
+    public void createNewItemsUserNotFound() {
+        when(userRepo.findById(anyInt()))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThrows(NotFoundException.class, () -> itemService.addNewItems(1, List.of(item)));
+        verify(repository, never()).saveAllAndFlush(anyList());
+    }
     //-- Unit-тесты сервиса
 }
@@ -25,10 +25,14 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -217,24 +221,28 @@ public class ItemRequestControllerTests {
                 .thenReturn(List.of(itemRequest));
         when(userRepository.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(itemRepository.findAll())
+        when(itemRepository.findByRequestIdIn(anyCollection()))
                 .thenReturn(new ArrayList<>());
 
         Assertions.assertEquals(itemRequestService.getAllForUser(user.getId()).size(), 1);
+        Assertions.assertEquals(itemRequest.getItems().size(), 0);
     }
 
     @Test
-    public void getAllItemRequestsAllItemsIsNullSuccessful() {
+    public void getAllItemRequestsLoadsOnlyItemsOfThePage() {
         itemRequestService = new ItemRequestServiceImpl(repository, userRepository, itemRepository);
 
         when(repository.findAllByRequestorIdOrderByCreated(anyInt()))
                 .thenReturn(List.of(itemRequest));
         when(userRepository.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(itemRepository.findAll())
-                .thenReturn(null);
+        when(itemRepository.findByRequestIdIn(anyCollection()))
+                .thenReturn(new ArrayList<>());
 
-        Assertions.assertEquals(itemRequestService.getAllForUser(user.getId()).size(), 1);
+        itemRequestService.getAllForUser(user.getId());
+
+        verify(itemRepository).findByRequestIdIn(Set.of(itemRequest.getId()));
+        verify(itemRepository, never()).findAll();
     }
 
     @Test
@@ -263,10 +271,11 @@ public class ItemRequestControllerTests {
                 .thenReturn(Optional.ofNullable(itemRequest));
         when(userRepository.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(itemRepository.findAll())
+        when(itemRepository.findByRequestIdIn(anyCollection()))
                 .thenReturn(List.of(item));
 
         Assertions.assertEquals(itemRequestService.getById(1, 1), itemRequest);
+        Assertions.assertEquals(itemRequest.getItems().size(), 1);
     }
 
     @Test
@@ -283,10 +292,11 @@ public class ItemRequestControllerTests {
                 .thenReturn(Optional.ofNullable(itemRequest));
         when(userRepository.findById(anyInt()))
                 .thenReturn(Optional.ofNullable(user));
-        when(itemRepository.findAll())
+        when(itemRepository.findByRequestIdIn(anyCollection()))
                 .thenReturn(List.of(item));
 
         Assertions.assertEquals(itemRequestService.getById(1, 1), itemRequest);
+        Assertions.assertEquals(itemRequest.getItems().size(), 0);
     }
 
     @Test
@@ -0,0 +1,146 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Runs the pg_trgm search query against a real PostgreSQL; the test profile otherwise uses H2, which
+ * has no {@code similarity()}. Skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "shareit.search.engine=trigram",
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.practicum.shareit.SqlRecorder"})
+public class ItemSearchPostgresTests {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.driverClassName", POSTGRES::getDriverClassName);
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private ItemRepository repository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setName("owner");
+        owner.setEmail("owner@test.ru");
+        userRepository.save(owner);
+    }
+
+    @Test
+    void searchOrdersByNameMatchThenSimilarity() {
+        Item descriptionMatch = item("Отвертка", "подходит к дрели", true);
+        Item nameMatch = item("Дрель ударная", "мощная", true);
+        Item exactNameMatch = item("Дрель", "аккумуляторная", true);
+        item("Дрель старая", "сломана", false);
+        item("Пылесос", "моющий", true);
+
+        Page<Item> firstPage = repository.findByNameOrDescriptionNative("ДРЕЛ", PageRequest.of(0, 2));
+        Page<Item> secondPage = repository.findByNameOrDescriptionNative("ДРЕЛ", PageRequest.of(1, 2));
+
+        assertThat(firstPage.getTotalElements(), equalTo(3L));
+        assertThat(ids(firstPage), equalTo(List.of(exactNameMatch.getId(), nameMatch.getId())));
+        assertThat(ids(secondPage), equalTo(List.of(descriptionMatch.getId())));
+        assertThat(repository.findByNameOrDescriptionNative("ПЫЛЕСОС", PageRequest.of(0, 10)).getTotalElements(),
+                equalTo(1L));
+        assertThat(repository.findByNameOrDescriptionNative("ТОСТЕР", PageRequest.of(0, 10)).getTotalElements(),
+                equalTo(0L));
+    }
+
+    /**
+     * Plans the statements both search methods send, with every path but a bitmap scan disabled, so the plan
+     * falls back to a sequential scan only when the trigram indexes cannot serve the query.
+     */
+    @Test
+    void searchQueriesUseTrigramIndexes() {
+        item("Дрель", "аккумуляторная", true);
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        jdbcTemplate.execute("SET LOCAL enable_indexscan = off");
+        jdbcTemplate.execute("SET LOCAL enable_indexonlyscan = off");
+
+        SqlRecorder.clear();
+        repository.findByNameOrDescriptionNative("ДРЕЛ", PageRequest.of(1, 2));
+        repository.findByNameOrDescriptionContaining("ДРЕЛ", PageRequest.of(1, 2));
+
+        List<String> statements = SqlRecorder.statements();
+        assertThat(statements.size(), equalTo(4));
+        for (String sql : statements) {
+            String plan = explain(sql, "ДРЕЛ");
+            assertThat(plan, containsString("idx_items_name_trgm"));
+            assertThat(plan, containsString("idx_items_description_trgm"));
+        }
+    }
+
+    private String explain(String sql, String text) {
+        List<String> lines = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+            ParameterMetaData parameters = statement.getParameterMetaData();
+            for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                if (parameters.getParameterType(i) == Types.BIGINT || parameters.getParameterType(i) == Types.INTEGER) {
+                    statement.setLong(i, 2);
+                } else {
+                    statement.setString(i, text);
+                }
+            }
+            return statement;
+        }, (resultSet, rowNum) -> resultSet.getString(1));
+        return String.join("\n", lines);
+    }
+
+    private Item item(String name, String description, boolean available) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setUserId(owner.getId());
+        return repository.saveAndFlush(item);
+    }
+
+    private static List<Integer> ids(Page<Item> page) {
+        return page.getContent().stream().map(Item::getId).collect(Collectors.toList());
+    }
+}
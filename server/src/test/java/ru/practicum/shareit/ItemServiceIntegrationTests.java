@@ -1,17 +1,27 @@
 package ru.practicum.shareit;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingServiceImpl;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.ItemBookingProjection;
 import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemImportResult;
+import ru.practicum.shareit.item.ItemImporter;
 import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemSearchEngine;
 import ru.practicum.shareit.item.ItemServiceImpl;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
@@ -25,7 +35,11 @@ import ru.practicum.shareit.user.UserService;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -33,6 +47,7 @@ import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.notNullValue;
 
 @Transactional
@@ -74,6 +89,15 @@ public class ItemServiceIntegrationTests {
     @Autowired
     ItemRequestRepository requestRepo;
 
+    @Autowired
+    ItemSearchEngine searchEngine;
+
+    @Autowired
+    ItemBookingProjection bookingProjection;
+
+    @Autowired
+    ItemImporter itemImporter;
+
     private Item item;
 
     private User user;
@@ -97,7 +121,8 @@ public class ItemServiceIntegrationTests {
         item.setUserId(user.getId());
         item.setRequestId(itemRequest.getId());
 
-        service = new ItemServiceImpl(repository, userRepo, bookingRepo, commentRepo, requestRepo);
+        service = new ItemServiceImpl(repository, userRepo, bookingRepo, commentRepo, requestRepo, searchEngine,
+                bookingProjection);
     }
 
     @Test
@@ -178,6 +203,35 @@ public class ItemServiceIntegrationTests {
         assertThat(item1.size(), equalTo(items.getSize()));
     }
 
+    @Test
+    public void getAllItemsWithLastAndNextBookingsAndComments() {
+        service.addNewItem(user.getId(), item);
+
+        User booker = new User();
+        booker.setName("booker_name");
+        booker.setEmail("booker@test.ru");
+        userService.create(booker);
+
+        createApprovedBooking(booker, LocalDateTime.now().minusDays(10));
+        Booking lastBooking = createApprovedBooking(booker, LocalDateTime.now().minusDays(2));
+        Booking nextBooking = createApprovedBooking(booker, LocalDateTime.now().plusDays(2));
+        createApprovedBooking(booker, LocalDateTime.now().plusDays(10));
+
+        Comment comment = new Comment();
+        comment.setText("test comment");
+        comment.setItemId(item.getId());
+        comment.setAuthorId(booker.getId());
+        comment.setCreated(LocalDateTime.now());
+        commentRepo.save(comment);
+
+        Item item1 = service.getAll(user.getId(), 0, 10).getContent().get(0);
+
+        assertThat(item1.getLastBooking().getId(), equalTo(lastBooking.getId()));
+        assertThat(item1.getNextBooking().getId(), equalTo(nextBooking.getId()));
+        assertThat(item1.getComments().size(), equalTo(1));
+        assertThat(item1.getComments().get(0).getAuthorName(), equalTo(booker.getName()));
+    }
+
     @Test
     public void searchItemsWithPagination() {
         service.addNewItem(user.getId(), item);
@@ -201,6 +255,47 @@ public class ItemServiceIntegrationTests {
         assertThat(items1.size(), equalTo(1));
     }
 
+    @Test
+    public void searchOrdersByRelevance() {
+        Item descriptionMatch = new Item();
+        descriptionMatch.setName("отвертка");
+        descriptionMatch.setDescription("крестовая, подходит к дрели");
+        descriptionMatch.setAvailable(true);
+        service.addNewItem(user.getId(), descriptionMatch);
+
+        Item nameMatch = new Item();
+        nameMatch.setName("Дрель ударная");
+        nameMatch.setDescription("мощная");
+        nameMatch.setAvailable(true);
+        service.addNewItem(user.getId(), nameMatch);
+
+        Item exactNameMatch = new Item();
+        exactNameMatch.setName("Дрель");
+        exactNameMatch.setDescription("аккумуляторная");
+        exactNameMatch.setAvailable(true);
+        service.addNewItem(user.getId(), exactNameMatch);
+
+        Item unavailable = new Item();
+        unavailable.setName("Дрель старая");
+        unavailable.setDescription("сломана");
+        unavailable.setAvailable(false);
+        service.addNewItem(user.getId(), unavailable);
+
+        Page<Item> firstPage = service.search(user.getId(), "дРЕл", 0, 2);
+        assertThat(firstPage.getTotalElements(), equalTo(3L));
+        assertThat(firstPage.getContent().get(0).getId(), equalTo(exactNameMatch.getId()));
+        assertThat(firstPage.getContent().get(1).getId(), equalTo(nameMatch.getId()));
+
+        Page<Item> secondPage = service.search(user.getId(), "дрел", 2, 2);
+        assertThat(secondPage.getContent().size(), equalTo(1));
+        assertThat(secondPage.getContent().get(0).getId(), equalTo(descriptionMatch.getId()));
+
+        unavailable.setAvailable(true);
+        service.put(user.getId(), unavailable.getId(), unavailable);
+        assertThat(service.search(user.getId(), "старая", 0, 10).getTotalElements(), equalTo(1L));
+        assertThat(service.search(user.getId(), "др", 0, 10).getTotalElements(), equalTo(4L));
+    }
+
     @Test
     public void addComment() throws InterruptedException {
         service.addNewItem(user.getId(), item);
@@ -235,4 +330,68 @@ public class ItemServiceIntegrationTests {
         assertThat(comments.size(), equalTo(1));
         assertThat(comments.size(), equalTo(item1.getComments().size()));
     }
+
+    @Test
+    public void importItemsInChunks() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < ItemImporter.CHUNK_SIZE + 10; i++) {
+            lines.append("{\"name\":\"imported ").append(i)
+                    .append("\",\"description\":\"imported item\",\"available\":true}\n");
+        }
+        lines.append("\n");
+        lines.append("{\"name\":\" \",\"description\":\"imported item\"}\n");
+        lines.append("not json\n");
+
+        ItemImportResult result = itemImporter.importItems(user.getId(),
+                new ByteArrayInputStream(lines.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getImported(), equalTo(ItemImporter.CHUNK_SIZE + 10));
+        assertThat(result.getRejected(), equalTo(2));
+        assertThat(result.getErrors(), equalTo(List.of(
+                "Строка " + (ItemImporter.CHUNK_SIZE + 12)
+                        + ": Наименование не может быть пустым, Статус доступности должен быть указан",
+                "Строка " + (ItemImporter.CHUNK_SIZE + 13) + ": некорректный JSON")));
+        assertThat(repository.findAllByUserIdOrderById(user.getId(), PageRequest.of(0, 10)).getTotalElements(),
+                equalTo((long) ItemImporter.CHUNK_SIZE + 10));
+    }
+
+    @Test
+    public void newItemsAreInsertedInBatches() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Item newItem = new Item();
+            newItem.setName("item " + i);
+            newItem.setDescription("batched item");
+            newItem.setAvailable(true);
+            items.add(newItem);
+        }
+        em.flush();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        service.addNewItems(user.getId(), items);
+
+        // ids come from two sequence calls of 50, and the 100 rows go through one batched statement
+        assertThat(statistics.getEntityInsertCount(), equalTo(100L));
+        assertThat(statistics.getPrepareStatementCount(), lessThanOrEqualTo(4L));
+        assertThat(items.get(99).getId() - items.get(0).getId(), equalTo(99));
+    }
+
+    @Test
+    public void importItemsForUnknownUser() {
+        Assertions.assertThrows(NotFoundException.class, () -> itemImporter.importItems(-1,
+                new ByteArrayInputStream(new byte[0])));
+    }
+
+    private Booking createApprovedBooking(User booker, LocalDateTime start) {
+        Booking booking = new Booking();
+        booking.setUserId(booker.getId());
+        booking.setItemId(item.getId());
+        booking.setStart(start);
+        booking.setEnd(start.plusDays(1));
+        booking.setStatus(BookingStatus.APPROVED);
+        Booking savedBooking = bookingRepo.save(booking);
+        bookingProjection.add(savedBooking);
+        return savedBooking;
+    }
 }
@@ -0,0 +1,75 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.metrics.MetricsConfig;
+import ru.practicum.shareit.metrics.RepositoryRowsAspect;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+@Transactional
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public class MetricsTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void serviceMethodsAreTimedWithOutcome() {
+        long before = serviceCalls("findById", "none");
+        User user = new User();
+        user.setName("metrics_user");
+        user.setEmail("metrics@test.ru");
+        userService.create(user);
+
+        userService.findById(user.getId());
+        Assertions.assertThrows(NotFoundException.class, () -> userService.findById(-1));
+
+        assertThat(serviceCalls("findById", "none"), equalTo(before + 1));
+        assertThat(serviceCalls("findById", "NotFoundException"), greaterThanOrEqualTo(1L));
+    }
+
+    @Test
+    public void fullTableLoadsRecordRowCounts() {
+        User user = new User();
+        user.setName("metrics_user");
+        user.setEmail("metrics_rows@test.ru");
+        userService.create(user);
+
+        int rows = userService.findAll().size();
+
+        assertThat(meterRegistry.get(RepositoryRowsAspect.ROWS_SUMMARY)
+                .tag("repository", "UserRepository")
+                .tag("method", "findAll")
+                .summary()
+                .max(), equalTo((double) rows));
+        assertThat(meterRegistry.get("spring.data.repository.invocations")
+                .tag("repository", "UserRepository")
+                .tag("method", "findAll")
+                .timer()
+                .count(), greaterThanOrEqualTo(1L));
+    }
+
+    private long serviceCalls(String method, String exception) {
+        Timer timer = meterRegistry.find(MetricsConfig.SERVICE_TIMER)
+                .tag("class", UserService.class.getName())
+                .tag("method", method)
+                .tag("exception", exception)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
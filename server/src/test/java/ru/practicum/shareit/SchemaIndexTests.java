@@ -0,0 +1,288 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Runs every query method of the repositories, records the SQL Hibernate sends for it and checks the H2 plan of
+ * each statement: the index the plan starts from is listed per method, and a method without an entry fails.
+ */
+@Transactional
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.practicum.shareit.SqlRecorder")
+public class SchemaIndexTests {
+
+    private static final List<Class<?>> REPOSITORIES = List.of(BookingRepository.class, ItemRepository.class,
+            CommentRepository.class, ItemRequestRepository.class, UserRepository.class);
+
+    /**
+     * Needs pg_trgm's similarity(), so its plan is checked in ItemSearchPostgresTests.
+     */
+    private static final Set<String> POSTGRESQL_ONLY = Set.of("ItemRepository.findByNameOrDescriptionNative/2");
+
+    /**
+     * First table access of an H2 plan: the index or scan named in its first comment.
+     */
+    private static final Pattern ACCESS = Pattern.compile("/\\* PUBLIC\\.([\\w.]+)");
+
+    private static final String PRIMARY_KEY = "PRIMARY_KEY";
+    private static final String BOOKER = "FK_BOOKINGS_TO_USERS_INDEX";
+    private static final String BOOKING_ITEM = "FK_BOOKINGS_TO_ITEMS_INDEX";
+    private static final String OWNER = "FK_ITEMS_TO_USERS_INDEX";
+    private static final String COMMENT_ITEM = "FK_COMMENTS_TO_ITEMS_INDEX";
+    private static final String REQUESTOR = "FK_REQUESTS_TO_USERS_INDEX";
+    /**
+     * Substring search cannot use a b-tree index; PostgreSQL serves it from the pg_trgm indexes of V3.
+     */
+    private static final String ITEMS_SCAN = "ITEMS.tableScan";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ItemRequestRepository requestRepository;
+
+    private final Set<String> planned = new TreeSet<>();
+
+    @Test
+    public void repositoryQueriesUseIndexes() {
+        LocalDateTime now = LocalDateTime.now();
+        PageRequest page = PageRequest.of(1, 10);
+        List<Integer> ids = List.of(1, 2, 3);
+
+        plan("BookingRepository.findWithItemAndBookerById/1",
+                List.of(PRIMARY_KEY),
+                () -> bookingRepository.findWithItemAndBookerById(1));
+        plan("BookingRepository.findByUserIdAndEndBeforeOrderByEndDesc/2",
+                List.of("IDX_BOOKINGS_BOOKER_END"),
+                () -> bookingRepository.findByUserIdAndEndBeforeOrderByEndDesc(1, now));
+        plan("BookingRepository.findByUserIdAndEndBefore/3",
+                List.of("IDX_BOOKINGS_BOOKER_END", "IDX_BOOKINGS_BOOKER_END"),
+                () -> bookingRepository.findByUserIdAndEndBefore(1, now, page));
+        plan("BookingRepository.findByUserIdOrderByEndDesc/1",
+                List.of(BOOKER),
+                () -> bookingRepository.findByUserIdOrderByEndDesc(1));
+        plan("BookingRepository.findByUserId/2",
+                List.of(BOOKER, BOOKER),
+                () -> bookingRepository.findByUserId(1, page));
+        plan("BookingRepository.findByUserIdAndStartBeforeAndEndAfterOrderByEndDesc/3",
+                List.of(BOOKER),
+                () -> bookingRepository.findByUserIdAndStartBeforeAndEndAfterOrderByEndDesc(1, now, now));
+        plan("BookingRepository.findByUserIdAndStartBeforeAndEndAfter/4",
+                List.of(BOOKER, BOOKER),
+                () -> bookingRepository.findByUserIdAndStartBeforeAndEndAfter(1, now, now, page));
+        plan("BookingRepository.findByUserIdAndStartAfterOrderByEndDesc/2",
+                List.of(BOOKER),
+                () -> bookingRepository.findByUserIdAndStartAfterOrderByEndDesc(1, now));
+        plan("BookingRepository.findByUserIdAndStartAfter/3",
+                List.of(BOOKER, BOOKER),
+                () -> bookingRepository.findByUserIdAndStartAfter(1, now, page));
+        plan("BookingRepository.findByUserIdAndStatusOrderByEndDesc/2",
+                List.of(BOOKER),
+                () -> bookingRepository.findByUserIdAndStatusOrderByEndDesc(1, BookingStatus.WAITING));
+        plan("BookingRepository.findByUserIdAndStatus/3",
+                List.of(BOOKER, BOOKER),
+                () -> bookingRepository.findByUserIdAndStatus(1, BookingStatus.WAITING, page));
+        plan("BookingRepository.findByItemIdInOrderByEndDesc/1",
+                List.of(BOOKING_ITEM),
+                () -> bookingRepository.findByItemIdInOrderByEndDesc(ids));
+        plan("BookingRepository.findByItemIdInAndStartBeforeAndEndAfterOrderByEndDesc/3",
+                List.of("IDX_BOOKINGS_ITEM_START"),
+                () -> bookingRepository.findByItemIdInAndStartBeforeAndEndAfterOrderByEndDesc(ids, now, now));
+        plan("BookingRepository.findByItemIdInAndEndBeforeOrderByEndDesc/2",
+                List.of("IDX_BOOKINGS_ITEM_END"),
+                () -> bookingRepository.findByItemIdInAndEndBeforeOrderByEndDesc(ids, now));
+        plan("BookingRepository.findByItemIdInAndStartAfterOrderByEndDesc/2",
+                List.of("IDX_BOOKINGS_ITEM_START"),
+                () -> bookingRepository.findByItemIdInAndStartAfterOrderByEndDesc(ids, now));
+        plan("BookingRepository.findByItemIdInAndStatusOrderByEndDesc/2",
+                List.of(BOOKING_ITEM),
+                () -> bookingRepository.findByItemIdInAndStatusOrderByEndDesc(ids, BookingStatus.WAITING));
+        plan("BookingRepository.findByUserIdAfterCursor/4",
+                List.of(BOOKER),
+                () -> bookingRepository.findByUserIdAfterCursor(1, now, 10, page));
+        plan("BookingRepository.findCurrentByUserIdAfterCursor/5",
+                List.of(BOOKER),
+                () -> bookingRepository.findCurrentByUserIdAfterCursor(1, now, now, 10, page));
+        plan("BookingRepository.findPastByUserIdAfterCursor/5",
+                List.of("IDX_BOOKINGS_BOOKER_END"),
+                () -> bookingRepository.findPastByUserIdAfterCursor(1, now, now, 10, page));
+        plan("BookingRepository.findFutureByUserIdAfterCursor/5",
+                List.of(BOOKER),
+                () -> bookingRepository.findFutureByUserIdAfterCursor(1, now, now, 10, page));
+        plan("BookingRepository.findByUserIdAndStatusAfterCursor/5",
+                List.of(BOOKER),
+                () -> bookingRepository.findByUserIdAndStatusAfterCursor(1, BookingStatus.WAITING, now, 10, page));
+        plan("BookingRepository.findByOwnerId/2",
+                List.of(OWNER, OWNER),
+                () -> bookingRepository.findByOwnerId(1, page));
+        plan("BookingRepository.findCurrentByOwnerId/3",
+                List.of(OWNER, OWNER),
+                () -> bookingRepository.findCurrentByOwnerId(1, now, page));
+        plan("BookingRepository.findPastByOwnerId/3",
+                List.of(OWNER, OWNER),
+                () -> bookingRepository.findPastByOwnerId(1, now, page));
+        plan("BookingRepository.findFutureByOwnerId/3",
+                List.of(OWNER, OWNER),
+                () -> bookingRepository.findFutureByOwnerId(1, now, page));
+        plan("BookingRepository.findByOwnerIdAndStatus/3",
+                List.of("IDX_BOOKINGS_STATUS_END", OWNER),
+                () -> bookingRepository.findByOwnerIdAndStatus(1, BookingStatus.WAITING, page));
+        plan("BookingRepository.findByOwnerIdAfterCursor/4",
+                List.of(OWNER),
+                () -> bookingRepository.findByOwnerIdAfterCursor(1, now, 10, page));
+        plan("BookingRepository.findCurrentByOwnerIdAfterCursor/5",
+                List.of(OWNER),
+                () -> bookingRepository.findCurrentByOwnerIdAfterCursor(1, now, now, 10, page));
+        plan("BookingRepository.findPastByOwnerIdAfterCursor/5",
+                List.of(OWNER),
+                () -> bookingRepository.findPastByOwnerIdAfterCursor(1, now, now, 10, page));
+        plan("BookingRepository.findFutureByOwnerIdAfterCursor/5",
+                List.of(OWNER),
+                () -> bookingRepository.findFutureByOwnerIdAfterCursor(1, now, now, 10, page));
+        plan("BookingRepository.findByOwnerIdAndStatusAfterCursor/5",
+                List.of("IDX_BOOKINGS_STATUS_END"),
+                () -> bookingRepository.findByOwnerIdAndStatusAfterCursor(1, BookingStatus.WAITING, now, 10, page));
+        plan("BookingRepository.streamByOwnerId/1",
+                List.of(OWNER),
+                () -> bookingRepository.streamByOwnerId(1).close());
+        plan("BookingRepository.findLastBookings/2",
+                List.of("IDX_BOOKINGS_STATUS_END"),
+                () -> bookingRepository.findLastBookings(BookingStatus.APPROVED.name(), now));
+        plan("BookingRepository.findByStatusAndStartAfter/2",
+                List.of("IDX_BOOKINGS_STATUS_END"),
+                () -> bookingRepository.findByStatusAndStartAfter(BookingStatus.APPROVED, now));
+        plan("BookingRepository.findByStatusAndEndAfter/2",
+                List.of("IDX_BOOKINGS_STATUS_END"),
+                () -> bookingRepository.findByStatusAndEndAfter(BookingStatus.APPROVED, now));
+        plan("BookingRepository.findByItemIdAndUserIdAndEndBeforeAndStatus/4",
+                List.of("IDX_BOOKINGS_ITEM_BOOKER_END"),
+                () -> bookingRepository.findByItemIdAndUserIdAndEndBeforeAndStatus(1, 1, now, BookingStatus.APPROVED));
+
+        plan("ItemRepository.findAllByUserIdOrderById/1",
+                List.of(OWNER),
+                () -> itemRepository.findAllByUserIdOrderById(1));
+        plan("ItemRepository.findAllByUserIdOrderById/2",
+                List.of(OWNER, OWNER),
+                () -> itemRepository.findAllByUserIdOrderById(1, page));
+        // substring searches: the two derived ones read the items in primary key order, every row included
+        plan("ItemRepository.findByNameLikeIgnoreCaseAndAvailableOrderById/2",
+                List.of(PRIMARY_KEY),
+                () -> itemRepository.findByNameLikeIgnoreCaseAndAvailableOrderById("%ДРЕЛ%", true));
+        plan("ItemRepository.findByDescriptionLikeIgnoreCaseAndAvailableOrderById/2",
+                List.of(PRIMARY_KEY),
+                () -> itemRepository.findByDescriptionLikeIgnoreCaseAndAvailableOrderById("%ДРЕЛ%", true));
+        plan("ItemRepository.findByNameOrDescriptionContaining/2",
+                List.of(ITEMS_SCAN, ITEMS_SCAN),
+                () -> itemRepository.findByNameOrDescriptionContaining("ДР", page));
+        plan("ItemRepository.findByIdAndUserId/2",
+                List.of(PRIMARY_KEY),
+                () -> itemRepository.findByIdAndUserId(1, 1));
+        plan("ItemRepository.existsByUserId/1",
+                List.of(OWNER),
+                () -> itemRepository.existsByUserId(1));
+        plan("ItemRepository.findByRequestIdIn/1",
+                List.of("IDX_ITEMS_REQUEST"),
+                () -> itemRepository.findByRequestIdIn(ids));
+
+        plan("CommentRepository.findByItemId/1",
+                List.of(COMMENT_ITEM),
+                () -> commentRepository.findByItemId(1));
+        plan("CommentRepository.findByItemIdIn/1",
+                List.of(COMMENT_ITEM),
+                () -> commentRepository.findByItemIdIn(ids));
+
+        plan("ItemRequestRepository.findAllByRequestorIdOrderByCreated/1",
+                List.of(REQUESTOR),
+                () -> requestRepository.findAllByRequestorIdOrderByCreated(1));
+        plan("ItemRequestRepository.findAllByRequestorIdNotOrderByCreated/2",
+                List.of("IDX_REQUESTS_CREATED", REQUESTOR),
+                () -> requestRepository.findAllByRequestorIdNotOrderByCreated(1, page));
+
+        Set<String> declared = new TreeSet<>();
+        for (Class<?> repository : REPOSITORIES) {
+            for (Method method : repository.getDeclaredMethods()) {
+                if (!method.isSynthetic() && !method.isDefault() && !Modifier.isStatic(method.getModifiers())) {
+                    declared.add(key(repository, method));
+                }
+            }
+        }
+        Set<String> covered = new TreeSet<>(planned);
+        covered.addAll(POSTGRESQL_ONLY);
+        Assertions.assertEquals(declared, covered, "every repository method needs a plan here");
+    }
+
+    /**
+     * Runs a repository method and compares the access path of each statement it sent with the expected one.
+     * Page queries on the second page send a count query as well.
+     */
+    private void plan(String method, List<String> expected, Runnable call) {
+        SqlRecorder.clear();
+        call.run();
+        List<String> plans = SqlRecorder.statements().stream().map(this::explain).collect(Collectors.toList());
+        List<String> access = plans.stream().map(SchemaIndexTests::access).collect(Collectors.toList());
+        Assertions.assertEquals(expected, access, method + " plans: " + plans);
+        if (!expected.contains(ITEMS_SCAN)) {
+            Assertions.assertTrue(plans.stream().noneMatch(plan -> plan.contains("tableScan")),
+                    method + " falls back to a full scan: " + plans);
+        }
+        planned.add(method);
+    }
+
+    /**
+     * Parameters are bound as null: H2 plans on the indexes alone, and the statement stays the one Hibernate sent.
+     */
+    private String explain(String sql) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+            for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                statement.setObject(i, null);
+            }
+            return statement;
+        }, resultSet -> resultSet.next() ? resultSet.getString(1) : null);
+    }
+
+    /**
+     * Generated index names end in a suffix that changes with the schema, e.g. FK_ITEMS_TO_USERS_INDEX_4.
+     */
+    private static String access(String plan) {
+        Matcher matcher = ACCESS.matcher(plan);
+        return matcher.find() ? matcher.group(1).replaceAll("^(FK_\\w+_INDEX|PRIMARY_KEY)_[0-9A-F]+$", "$1") : plan;
+    }
+
+    private static String key(Class<?> repository, Method method) {
+        return repository.getSimpleName() + "." + method.getName() + "/" + method.getParameterCount();
+    }
+}